@@ -0,0 +1,55 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Representative board states for the benchmarks. Boards are filled at random from a fixed seed, so every run
+ * benchmarks exactly the same positions, and never contain a full line.
+ */
+final class Boards {
+
+    private Boards() {
+    }
+
+    /**
+     * Fill a grid to one of the named states
+     *
+     * @param grid  the grid to fill, should be empty
+     * @param state "empty", "sparse" (about a third full) or "dense" (about two thirds full)
+     * @param seed  seed for choosing the cells
+     */
+    static void fill(Grid grid, String state, long seed) {
+        double density = switch (state) {
+            case "empty" -> 0;
+            case "sparse" -> 0.33;
+            case "dense" -> 0.66;
+            default -> throw new IllegalArgumentException("Unknown board state: " + state);
+        };
+
+        var random = new SplittableRandom(seed);
+        for (int y = 0; y < grid.getRows(); y++) {
+            for (int x = 0; x < grid.getCols(); x++) {
+                if (random.nextDouble() >= density) continue;
+                grid.set(x, y, 1 + random.nextInt(GamePiece.PIECES));
+                //a full line would be cleared in a real game, so don't leave one
+                if (grid.getFullRows() != 0 || grid.getFullColumns() != 0) {
+                    grid.set(x, y, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Make one grid match another, cell by cell
+     *
+     * @param grid     the grid to change
+     * @param template the grid to copy
+     */
+    static void copy(Grid grid, Grid template) {
+        for (int y = 0; y < grid.getRows(); y++) {
+            for (int x = 0; x < grid.getCols(); x++) {
+                grid.set(x, y, template.get(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package uk.ac.soton.comp1206.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Game engine: line clearing, scoring, spawning and rotating pieces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.level=WARN")
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    /**
+     * Game on a sparse board with no full lines
+     */
+    private Game game;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        game = new Game(5, 5, 1206);
+        game.start();
+        Boards.fill(game.getGrid(), "sparse", 1206);
+    }
+
+    /**
+     * A game which has a full row and a full column ready to be cleared before every call. Kept separate so only the
+     * benchmark using it pays for the per-call setup.
+     */
+    @State(Scope.Thread)
+    public static class FullLines {
+
+        /**
+         * the game with lines to clear
+         */
+        private Game game;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() {
+            game = new Game(5, 5, 1206);
+            game.start();
+        }
+
+        @Setup(Level.Invocation)
+        public void fillLines() {
+            //one full row and one full column, crossing in the middle
+            Grid grid = game.getGrid();
+            for (int i = 0; i < 5; i++) {
+                grid.set(i, 2, 3);
+                grid.set(2, i, 3);
+            }
+        }
+    }
+
+    /**
+     * A game to try a move on and take it back, the way a search would. Kept separate so the other benchmarks' game
+     * never starts remembering its pieces.
+     */
+    @State(Scope.Thread)
+    public static class MakeUnmake {
+
+        /**
+         * the game being searched
+         */
+        private Game game;
+
+        /**
+         * the state to go back to
+         */
+        private GameSnapshot start;
+
+        /**
+         * where the move goes
+         */
+        private int rotation;
+        private int x;
+        private int y;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() {
+            game = new Game(5, 5, 1206);
+            game.start();
+            Boards.fill(game.getGrid(), "sparse", 1206);
+            start = game.snapshot();
+
+            Placements placements = game.getGrid().legalPlacements(game.getCurrentPiece());
+            int first = placements.first();
+            rotation = placements.getRotation(first);
+            x = placements.getX(first);
+            y = placements.getY(first);
+        }
+    }
+
+    /**
+     * Check for lines after a placement which didn't complete any
+     */
+    @Benchmark
+    public void afterPieceNoLines() {
+        game.afterPiece();
+    }
+
+    /**
+     * Check for lines after a placement which completed a row and a column, and clear them
+     */
+    @Benchmark
+    public void afterPieceClearRowAndColumn(FullLines fullLines) {
+        fullLines.game.afterPiece();
+    }
+
+    /**
+     * Place a piece, then restore the game to how it was before
+     */
+    @Benchmark
+    public boolean placeAndRestore(MakeUnmake search) {
+        search.game.rotate(search.rotation);
+        boolean placed = search.game.place(search.x, search.y);
+        search.game.restore(search.start);
+        return placed;
+    }
+
+    /**
+     * Score a placement which cleared two lines
+     */
+    @Benchmark
+    public int calculateScore() {
+        game.calculateAndUpdateScore(2, 9);
+        return game.getScoreValue();
+    }
+
+    /**
+     * Spawn a new piece from the game's generator
+     */
+    @Benchmark
+    public GamePiece spawnPiece() {
+        return game.spawnPiece();
+    }
+
+    /**
+     * Rotate a piece once
+     */
+    @Benchmark
+    public GamePiece rotatePiece(Blackhole blackhole) {
+        GamePiece piece = game.getCurrentPiece().rotate(1);
+        blackhole.consume(piece);
+        return piece.rotate(3);
+    }
+}
@@ -0,0 +1,143 @@
+package uk.ac.soton.comp1206.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Grid model: checking, enumerating and playing placements on representative boards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+
+    /**
+     * How full the board is
+     */
+    @Param({"empty", "sparse", "dense"})
+    public String board;
+
+    /**
+     * How many cells a side the board is, to see how the grid scales
+     */
+    @Param({"5", "16", "64"})
+    public int size;
+
+    /**
+     * The board being benchmarked
+     */
+    private Grid grid;
+
+    /**
+     * A piece with an awkward shape, so plenty of placements are rejected
+     */
+    private GamePiece piece;
+
+    /**
+     * Reused set of legal placements
+     */
+    private Placements placements;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        grid = new Grid(size, size);
+        Boards.fill(grid, board, 1206);
+        piece = GamePiece.createPiece(5);
+        placements = new Placements(size, size);
+    }
+
+    /**
+     * A copy of the board which is put back before every call, for benchmarking playPiece. Kept separate so only the
+     * benchmark using it pays for the per-call setup.
+     */
+    @State(Scope.Thread)
+    public static class Playing {
+
+        /**
+         * The board as it starts
+         */
+        private Grid template;
+
+        /**
+         * The board being played on
+         */
+        private Grid grid;
+
+        /**
+         * Where to play. The first legal spot, or the centre if there isn't one.
+         */
+        private int x;
+        private int y;
+
+        @Setup(Level.Trial)
+        public void setUpTrial(GridBenchmark benchmark) {
+            template = benchmark.grid;
+            grid = new Grid(template.getCols(), template.getRows());
+
+            Placements placements = template.legalPlacements(benchmark.piece);
+            int first = placements.first();
+            while (first >= 0 && placements.getRotation(first) != 0) {
+                first = placements.next(first);
+            }
+            x = first >= 0 ? placements.getX(first) : template.getCols() / 2;
+            y = first >= 0 ? placements.getY(first) : template.getRows() / 2;
+        }
+
+        @Setup(Level.Invocation)
+        public void resetBoard() {
+            Boards.copy(grid, template);
+        }
+    }
+
+    /**
+     * Check the piece at every position on the board
+     */
+    @Benchmark
+    public void canPlayPieceEverywhere(Blackhole blackhole) {
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                blackhole.consume(grid.canPlayPiece(piece, i, j));
+            }
+        }
+    }
+
+    /**
+     * Find every legal placement in every rotation
+     */
+    @Benchmark
+    public Placements legalPlacements() {
+        return grid.legalPlacements(piece, placements);
+    }
+
+    /**
+     * Check whether the piece fits anywhere, as the game does after every placement
+     */
+    @Benchmark
+    public boolean hasLegalPlacement() {
+        return grid.hasLegalPlacement(piece);
+    }
+
+    /**
+     * Play the piece once. The board is put back before every call.
+     */
+    @Benchmark
+    public boolean playPiece(Playing playing) {
+        return playing.grid.playPiece(piece, playing.x, playing.y);
+    }
+}
@@ -0,0 +1,101 @@
+package uk.ac.soton.comp1206.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the whole placement path: Game.place through Grid.playPiece, afterPiece and spawning the next piece.
+ * <p>
+ * Once the trial is over it also checks that placing a piece allocates nothing, and fails the run if it does. Run with
+ * -prof gc to see the allocation rate per placement alongside the timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class PlacementBenchmark {
+
+    /**
+     * How many placements to count the allocations of
+     */
+    private static final int CHECKED_PLACEMENTS = 100_000;
+
+    /**
+     * How many times to count them
+     */
+    private static final int CHECK_ROUNDS = 3;
+
+    /**
+     * The game being played
+     */
+    private Game game;
+
+    /**
+     * Reused to find where the current piece can go
+     */
+    private Placements placements;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        game = new Game(5, 5, 1206);
+        //the benchmark empties the board itself when it gets stuck, so the game must not end first
+        game.setNoMovesPenalty(NoMovesPenalty.NONE);
+        game.start();
+        placements = new Placements(game.getCols(), game.getRows());
+    }
+
+    /**
+     * Play the current piece in the first place it fits, rotating it first if it needs to be. The board is emptied
+     * when nothing fits, since the game only ends when the timer runs out.
+     *
+     * @return true if the piece was placed
+     */
+    @Benchmark
+    public boolean place() {
+        Grid grid = game.getGrid();
+        int first = grid.legalPlacements(game.getCurrentPiece(), placements).first();
+        if (first < 0) {
+            grid.clearLines(-1L >>> (Long.SIZE - game.getRows()), 0);
+            first = grid.legalPlacements(game.getCurrentPiece(), placements).first();
+        }
+        int rotation = placements.getRotation(first);
+        if (rotation != 0) {
+            game.rotate(rotation);
+        }
+        return game.place(placements.getX(first), placements.getY(first));
+    }
+
+    @TearDown(Level.Trial)
+    public void checkNoAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        //take the best of a few rounds, so a one-off allocation by the JIT or the JVM doesn't fail the run. Anything
+        //allocated per placement shows up in every round.
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < CHECK_ROUNDS; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < CHECKED_PLACEMENTS; i++) {
+                place();
+            }
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+        if (allocated > 0) {
+            throw new IllegalStateException(
+                    CHECKED_PLACEMENTS + " placements allocated " + allocated + " bytes, expected none");
+        }
+    }
+}
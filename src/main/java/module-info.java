@@ -4,6 +4,7 @@ module uk.ac.soton.comp1206 {
     requires javafx.fxml;
     requires javafx.media;
     requires org.apache.logging.log4j;
+    requires org.apache.logging.log4j.core;
     requires nv.websocket.client;
     opens uk.ac.soton.comp1206.ui to javafx.fxml;
     exports uk.ac.soton.comp1206;
@@ -13,4 +14,6 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.event;
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
+    exports uk.ac.soton.comp1206.simulation;
+    exports uk.ac.soton.comp1206.replay;
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import uk.ac.soton.comp1206.helpers.AssetCache;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 /**
@@ -26,6 +27,7 @@ public class App extends Application {
     private static App instance;
     private static final Logger logger = LogManager.getLogger(App.class);
     private Stage stage;
+    private GameWindow gameWindow;
 
     /**
      * Start the game
@@ -58,7 +60,7 @@ public class App extends Application {
         logger.info("Opening game window");
 
         //Change the width and height in this class to change the base rendering resolution for all game parts
-        var gameWindow = new GameWindow(stage, width, height);
+        gameWindow = new GameWindow(stage, width, height);
 
         //Display the GameWindow
         stage.show();
@@ -69,6 +71,10 @@ public class App extends Application {
      */
     public void shutdown() {
         logger.info("Shutting down");
+        if (gameWindow != null) {
+            gameWindow.getCommunicator().close();
+        }
+        logger.info("Assets: " + AssetCache.getStats());
         System.exit(0);
     }
 
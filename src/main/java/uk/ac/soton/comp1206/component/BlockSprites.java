@@ -0,0 +1,246 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.DirectionalLight;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.effect.Glow;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.transform.Transform;
+import javafx.stage.Screen;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every look a GameBlock of one size can have, drawn once into a single atlas image so painting a block is just a
+ * drawImage.
+ * <p>
+ * The atlas has one column per colour in GameBlock.COLOURS and one row per State. Each sprite is drawn exactly the way
+ * GameBlock used to draw itself, effects and all, on a scratch canvas and copied in. Atlases are shared between every
+ * block of the same size, and only ever used on the JavaFX thread.
+ */
+final class BlockSprites {
+
+    private static final Logger logger = LogManager.getLogger(BlockSprites.class);
+
+    /**
+     * The ways a block can be drawn, one row of the atlas each
+     */
+    enum State {
+        /**
+         * just the block
+         */
+        PLAIN,
+        /**
+         * the block with the mouse over it
+         */
+        HOVER,
+        /**
+         * the block with the cursor circle on it
+         */
+        CIRCLE,
+        /**
+         * an empty block showing where a hint would put a block of this colour
+         */
+        HINT
+    }
+
+    /**
+     * The atlases made so far, by block size and screen scale
+     */
+    private static final Map<String, BlockSprites> CACHE = new HashMap<>();
+
+    /**
+     * The rendered sprites
+     */
+    private final Image atlas;
+
+    /**
+     * The size of a sprite in the atlas, in pixels
+     */
+    private final double spriteWidth;
+    private final double spriteHeight;
+
+    /**
+     * Get the sprites for a block size, drawing them if this is the first block that size
+     *
+     * @param width  the width of the block
+     * @param height the height of the block
+     * @return the sprites
+     */
+    static BlockSprites get(double width, double height) {
+        //draw at the screen's scale, so blocks aren't blurry on high DPI screens
+        double scale = Screen.getPrimary().getOutputScaleX();
+        return CACHE.computeIfAbsent(width + "x" + height + "@" + scale, key -> new BlockSprites(width, height, scale));
+    }
+
+    /**
+     * Draw every sprite for a block size
+     *
+     * @param width  the width of the block
+     * @param height the height of the block
+     * @param scale  the screen scale to draw at
+     */
+    private BlockSprites(double width, double height, double scale) {
+        logger.info("Drawing block sprites for {} x {} at scale {}", width, height, scale);
+        spriteWidth = Math.ceil(width * scale);
+        spriteHeight = Math.ceil(height * scale);
+
+        int colours = GameBlock.COLOURS.length;
+        int states = State.values().length;
+        WritableImage image = new WritableImage((int) spriteWidth * colours, (int) spriteHeight * states);
+
+        //each sprite gets a fresh canvas, as applying an effect affects everything on the canvas
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(Transform.scale(scale, scale));
+        WritableImage sprite = new WritableImage((int) spriteWidth, (int) spriteHeight);
+
+        for (State state : State.values()) {
+            for (int value = 0; value < colours; value++) {
+                Canvas canvas = new Canvas(width, height);
+                draw(canvas.getGraphicsContext2D(), value, state, width, height);
+                canvas.snapshot(parameters, sprite);
+                image.getPixelWriter().setPixels(value * (int) spriteWidth, state.ordinal() * (int) spriteHeight,
+                        (int) spriteWidth, (int) spriteHeight, sprite.getPixelReader(), 0, 0);
+            }
+        }
+        atlas = image;
+    }
+
+    /**
+     * Paint a block from the atlas
+     *
+     * @param gc     the block's graphics context
+     * @param value  the block's value, which picks its colour
+     * @param state  how to draw it
+     * @param width  the width of the block
+     * @param height the height of the block
+     */
+    void paint(GraphicsContext gc, int value, State state, double width, double height) {
+        paint(gc, value, state, 0, 0, width, height);
+    }
+
+    /**
+     * Paint a block from the atlas somewhere on a bigger canvas
+     *
+     * @param gc     the canvas's graphics context
+     * @param value  the block's value, which picks its colour
+     * @param state  how to draw it
+     * @param left   where the block's left edge is on the canvas
+     * @param top    where the block's top edge is on the canvas
+     * @param width  the width of the block
+     * @param height the height of the block
+     */
+    void paint(GraphicsContext gc, int value, State state, double left, double top, double width, double height) {
+        gc.clearRect(left, top, width, height);
+        gc.drawImage(atlas, value * spriteWidth, state.ordinal() * spriteHeight, spriteWidth, spriteHeight,
+                left, top, width, height);
+    }
+
+    /**
+     * Draw one sprite the long way
+     *
+     * @param gc     where to draw it
+     * @param value  the block's value, which picks its colour
+     * @param state  how to draw it
+     * @param width  the width of the block
+     * @param height the height of the block
+     */
+    private static void draw(GraphicsContext gc, int value, State state, double width, double height) {
+        if (value == 0 || state == State.HINT) {
+            drawEmpty(gc, width, height);
+        } else {
+            drawColour(gc, GameBlock.COLOURS[value], width, height);
+        }
+
+        switch (state) {
+            case HOVER -> {
+                //go over the block again with the fill it was drawn with, to brighten it
+                gc.setStroke(Color.rgb(255, 255, 255, 1));
+                gc.fillRect(0, 0, width, height);
+            }
+            case CIRCLE -> {
+                //colour is transparent white
+                gc.setFill(Color.rgb(128, 128, 128, 0.7));
+                gc.fillOval(0, 0, width, height);
+            }
+            case HINT -> {
+                //a faint, inset square of the colour, so it can't be mistaken for a placed block
+                Color colour = GameBlock.COLOURS[value];
+                gc.setFill(Color.color(colour.getRed(), colour.getGreen(), colour.getBlue(), 0.35));
+                gc.fillRect(width * 0.15, height * 0.15, width * 0.7, height * 0.7);
+                gc.setStroke(Color.WHITE);
+                gc.strokeRect(width * 0.15, height * 0.15, width * 0.7, height * 0.7);
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Draw an empty block
+     *
+     * @param gc     where to draw it
+     * @param width  the width of the block
+     * @param height the height of the block
+     */
+    private static void drawEmpty(GraphicsContext gc, double width, double height) {
+        //Fill with slight transparency on black colour
+        gc.setFill(new Color(0.6, 0.6, 0.6, 0.15));
+        gc.fillRect(0, 0, width, height);
+
+        //glow effect on the rects makes the pieces look shiny
+        Glow glow = new Glow();
+        glow.setLevel(0.6);
+        gc.applyEffect(glow);
+
+        //Border
+        gc.setStroke(Color.BLACK);
+        gc.strokeRect(0, 0, width, height);
+    }
+
+    /**
+     * Draw a coloured block
+     *
+     * @param gc     where to draw it
+     * @param colour the colour of the block
+     * @param width  the width of the block
+     * @param height the height of the block
+     */
+    private static void drawColour(GraphicsContext gc, Color colour, double width, double height) {
+        //create glow on the block
+        Glow glow = new Glow();
+        glow.setLevel(0.6);
+
+        //some lighting stuff. the lighting and glow gives a cartoony effect on the blocks
+        DirectionalLight light = new DirectionalLight();
+        light.setColor(Color.WHITE);
+        light.setTranslateX(150);
+        light.setTranslateY(0);
+        light.setTranslateZ(-200);
+
+        //draw effect
+        gc.applyEffect(glow);
+        gc.applyEffect(light.getEffect());
+
+        // Define the colours to make up the block
+        Color colourEnd = colour.desaturate().desaturate().darker().desaturate(); //just played around to get this value
+
+        //fill with a gradient, so block is not one colour throughout.
+        gc.setFill(new LinearGradient(0, 0, 1, 0, true, CycleMethod.NO_CYCLE, new Stop(0, colour), new Stop(1, colourEnd)));
+        gc.fillRect(0, 0, width, height);
+
+        //Border
+        gc.setStroke(Color.BLACK);
+        gc.strokeRect(0, 0, width, height);
+    }
+}
@@ -0,0 +1,356 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.CellClickedListener;
+import uk.ac.soton.comp1206.event.RotateListener;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * A CanvasGameBoard is an alternative to GameBoard which draws the whole grid on a single Canvas, instead of holding a
+ * GameBlock node per cell.
+ * <p>
+ * It listens to the grid for change sets rather than binding to a property per cell, keeps a note of which cells are
+ * dirty, and redraws just those cells once per frame. Mouse positions are turned into cells by the board itself, and
+ * clicks are passed on as GameBlockCoordinates.
+ * <p>
+ * Like GameBoard, it can hold an internal grid of it's own or be linked to an external grid. It is only a visual
+ * representation and should not contain game logic or model logic in it.
+ */
+public class CanvasGameBoard extends Canvas {
+
+    private static final Logger logger = LogManager.getLogger(CanvasGameBoard.class);
+
+    /**
+     * Number of columns in the board
+     */
+    protected final int cols;
+
+    /**
+     * Number of rows in the board
+     */
+    protected final int rows;
+
+    /**
+     * The visual width of a cell
+     */
+    protected final double cellWidth;
+
+    /**
+     * The visual height of a cell
+     */
+    protected final double cellHeight;
+
+    /**
+     * The grid this board represents
+     */
+    final Grid grid;
+
+    /**
+     * The pre-drawn looks of a cell this size
+     */
+    private final BlockSprites sprites;
+
+    /**
+     * The cells which need redrawing. Bit x of dirtyRows[y] is set when the cell at x, y is dirty.
+     */
+    private final long[] dirtyRows;
+
+    /**
+     * Redraws the dirty cells on the next frame, then stops until something else changes
+     */
+    private final AnimationTimer repaint = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            stop();
+            repaintScheduled = false;
+            repaintDirty();
+        }
+    };
+
+    /**
+     * true while a repaint is waiting for the next frame
+     */
+    private boolean repaintScheduled = false;
+
+    /**
+     * whether to highlight the cell under the mouse
+     */
+    private boolean highlightOnHover = true;
+
+    /**
+     * The cell under the mouse, or -1 if the mouse isn't over the board
+     */
+    private int hoverX = -1;
+    private int hoverY = -1;
+
+    /**
+     * The cell with the circle drawn on it, or -1 if there isn't one
+     */
+    private int circleX = -1;
+    private int circleY = -1;
+
+    /**
+     * The listener to call when a cell is clicked
+     */
+    protected CellClickedListener cellClickedListener;
+
+    /**
+     * The listener to call when a piece is rotated
+     */
+    protected RotateListener rotateListener;
+
+    /**
+     * Create a new CanvasGameBoard, based off a given grid, with a visual width and height.
+     *
+     * @param grid   linked grid
+     * @param width  the visual width
+     * @param height the visual height
+     */
+    public CanvasGameBoard(Grid grid, double width, double height) {
+        super(width, height);
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.cellWidth = width / cols;
+        this.cellHeight = height / rows;
+        this.sprites = BlockSprites.get(cellWidth, cellHeight);
+        this.dirtyRows = new long[rows];
+
+        logger.info("Building canvas board: {} x {}", cols, rows);
+
+        //draw every cell to start with, then only the ones which change
+        grid.setGridChangeListener((changed, changedRows) -> markDirty(changedRows));
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                paintCell(x, y);
+            }
+        }
+
+        setOnMouseMoved(this::mouseMoved);
+        setOnMouseExited(e -> setHover(-1, -1));
+        setOnMouseClicked(this::mouseClicked);
+    }
+
+    /**
+     * Create a new CanvasGameBoard with it's own internal grid, specifying the number of columns and rows, along with
+     * the visual width and height.
+     *
+     * @param cols   number of columns for internal grid
+     * @param rows   number of rows for internal grid
+     * @param width  the visual width
+     * @param height the visual height
+     */
+    public CanvasGameBoard(int cols, int rows, double width, double height) {
+        this(new Grid(cols, rows), width, height);
+    }
+
+    /**
+     * Get the grid this board represents
+     *
+     * @return the grid
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Set whether the cell under the mouse is highlighted
+     *
+     * @param highlightOnHover true to highlight it
+     */
+    public void setHighlightOnHover(boolean highlightOnHover) {
+        this.highlightOnHover = highlightOnHover;
+        if (!highlightOnHover) {
+            setHover(-1, -1);
+        }
+    }
+
+    /**
+     * Draw a circle on a cell, to show where the keyboard is pointing. Only one cell has the circle at a time.
+     *
+     * @param x column
+     * @param y row
+     */
+    public void drawCircle(int x, int y) {
+        markDirty(circleX, circleY);
+        circleX = x;
+        circleY = y;
+        markDirty(x, y);
+    }
+
+    /**
+     * Remove the circle drawn by drawCircle
+     */
+    public void clearCircle() {
+        drawCircle(-1, -1);
+    }
+
+    /**
+     * Note that a cell needs redrawing, and make sure a repaint is coming on the next frame
+     *
+     * @param x column
+     * @param y row
+     */
+    private void markDirty(int x, int y) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) {
+            return;
+        }
+        dirtyRows[y] |= 1L << x;
+        if (!repaintScheduled) {
+            repaintScheduled = true;
+            repaint.start();
+        }
+    }
+
+    /**
+     * Note that a set of cells need redrawing, and make sure a repaint is coming on the next frame
+     *
+     * @param changedRows the cells, bit x of changedRows[y] for the cell at x, y
+     */
+    private void markDirty(long[] changedRows) {
+        for (int y = 0; y < rows; y++) {
+            dirtyRows[y] |= changedRows[y];
+        }
+        if (!repaintScheduled) {
+            repaintScheduled = true;
+            repaint.start();
+        }
+    }
+
+    /**
+     * Redraw every dirty cell
+     */
+    private void repaintDirty() {
+        for (int y = 0; y < rows; y++) {
+            long dirty = dirtyRows[y];
+            dirtyRows[y] = 0;
+            while (dirty != 0) {
+                paintCell(Long.numberOfTrailingZeros(dirty), y);
+                dirty &= dirty - 1;
+            }
+        }
+    }
+
+    /**
+     * Draw a single cell
+     *
+     * @param x column
+     * @param y row
+     */
+    private void paintCell(int x, int y) {
+        BlockSprites.State state = BlockSprites.State.PLAIN;
+        if (x == circleX && y == circleY) {
+            state = BlockSprites.State.CIRCLE;
+        } else if (x == hoverX && y == hoverY) {
+            state = BlockSprites.State.HOVER;
+        }
+        GraphicsContext gc = getGraphicsContext2D();
+        sprites.paint(gc, grid.get(x, y), state, x * cellWidth, y * cellHeight, cellWidth, cellHeight);
+    }
+
+    /**
+     * Move the hover highlight to another cell
+     *
+     * @param x column, or -1 for none
+     * @param y row, or -1 for none
+     */
+    private void setHover(int x, int y) {
+        if (x == hoverX && y == hoverY) {
+            return;
+        }
+        markDirty(hoverX, hoverY);
+        hoverX = x;
+        hoverY = y;
+        markDirty(x, y);
+    }
+
+    /**
+     * Work out which column a point on the board is in
+     *
+     * @param x the x position on the canvas
+     * @return the column, or -1 if it is off the board
+     */
+    private int columnAt(double x) {
+        int column = (int) Math.floor(x / cellWidth);
+        return column >= 0 && column < cols ? column : -1;
+    }
+
+    /**
+     * Work out which row a point on the board is in
+     *
+     * @param y the y position on the canvas
+     * @return the row, or -1 if it is off the board
+     */
+    private int rowAt(double y) {
+        int row = (int) Math.floor(y / cellHeight);
+        return row >= 0 && row < rows ? row : -1;
+    }
+
+    /**
+     * Triggered when the mouse moves over the board. Moves the highlight to the cell under it.
+     *
+     * @param event mouse event
+     */
+    private void mouseMoved(MouseEvent event) {
+        if (!highlightOnHover) {
+            return;
+        }
+        int x = columnAt(event.getX());
+        int y = rowAt(event.getY());
+        if (x < 0 || y < 0) {
+            setHover(-1, -1);
+        } else {
+            setHover(x, y);
+        }
+    }
+
+    /**
+     * Triggered when the board is clicked. Call the attached listener with the cell under the mouse.
+     *
+     * @param event mouse event
+     */
+    private void mouseClicked(MouseEvent event) {
+        int x = columnAt(event.getX());
+        int y = rowAt(event.getY());
+        if (x < 0 || y < 0) {
+            return;
+        }
+        logger.info("Cell clicked: {}, {}", x, y);
+
+        //a right click rotates the current piece
+        if (event.getButton() == MouseButton.SECONDARY) {
+            if (rotateListener != null) {
+                rotateListener.detectRotation();
+            }
+            return;
+        }
+
+        if (cellClickedListener != null) {
+            cellClickedListener.cellClicked(new GameBlockCoordinate(x, y));
+        }
+    }
+
+    /**
+     * Set the listener to handle an event when a cell is clicked
+     *
+     * @param listener listener to add
+     */
+    public void setOnCellClick(CellClickedListener listener) {
+        this.cellClickedListener = listener;
+    }
+
+    /**
+     * Set the listener to handle an event when the board is right clicked
+     *
+     * @param rotateListener listener to add
+     */
+    public void setOnRightClick(RotateListener rotateListener) {
+        this.rotateListener = rotateListener;
+    }
+}
@@ -0,0 +1,38 @@
+package uk.ac.soton.comp1206.component;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * for displaying a piece on a single canvas. A lighter PieceBoard for screens which show a lot of pieces at once.
+ */
+public class CanvasPieceBoard extends CanvasGameBoard {
+
+    public CanvasPieceBoard(double width, double height) {
+        //piece board values
+        super(3, 3, width, height);
+        setHighlightOnHover(false);
+    }
+
+    /**
+     * Displays the piece onto the pieceboard
+     *
+     * @param gamePiece the piece to display
+     */
+    public void setPieceToDisplay(GamePiece gamePiece) {
+        int[][] blocks = gamePiece.getBlocks();
+        grid.beginUpdate();
+        for (int j = 0; j < this.rows; j++) {
+            for (int i = 0; i < this.cols; i++) {
+                grid.set(i, j, blocks[i][j]);
+            }
+        }
+        grid.commitUpdate();
+    }
+
+    /**
+     * draw a circle to display where to click the piece
+     */
+    public void drawCircle() {
+        drawCircle(1, 1);
+    }
+}
@@ -1,32 +1,20 @@
 package uk.ac.soton.comp1206.component;
 
-import javafx.animation.FadeTransition;
-import javafx.animation.FillTransition;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
-import javafx.event.ActionEvent;
-import javafx.event.EventHandler;
-import javafx.scene.DirectionalLight;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.effect.*;
-import javafx.scene.paint.*;
-import javafx.scene.shape.Rectangle;
-import javafx.util.Duration;
+import javafx.scene.paint.Color;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.nio.file.DirectoryNotEmptyException;
-import java.security.Key;
-
 /**
  * The Visual User Interface component representing a single block in the grid.
  * <p>
  * Extends Canvas and is responsible for drawing itself.
  * <p>
- * Displays an empty square (when the value is 0) or a coloured square depending on value.
+ * Displays an empty square (when the value is 0) or a coloured square depending on value. The squares are drawn once
+ * per block size into shared BlockSprites, so repainting a block is a single image copy.
  * <p>
  * The GameBlock value should be bound to a corresponding block in the Grid model.
  */
@@ -61,6 +49,11 @@ public class GameBlock extends Canvas {
     private final double width;
     private final double height;
 
+    /**
+     * The pre-drawn looks of a block this size
+     */
+    private final BlockSprites sprites;
+
     /**
      * The column this block exists as in the grid
      */
@@ -76,6 +69,11 @@ public class GameBlock extends Canvas {
      */
     private final IntegerProperty value = new SimpleIntegerProperty(0);
 
+    /**
+     * The colour a hint would put in this block, or 0 if it isn't part of a hint
+     */
+    private int hint = 0;
+
     /**
      * Create a new single Game Block
      *
@@ -95,6 +93,7 @@ public class GameBlock extends Canvas {
         //A canvas needs a fixed width and height
         setWidth(width);
         setHeight(height);
+        sprites = BlockSprites.get(width, height);
 
         //Do an initial paint
         paint();
@@ -108,16 +107,12 @@ public class GameBlock extends Canvas {
         }
     }
 
+    /**
+     * Highlight the block as the mouse moves over it
+     */
     private void highlightBlock() {
         //highlight the block
-        var gc = getGraphicsContext2D();
-
-        //clear rect and repaint rect so dont draw over previous circle
-        paint();
-
-        //colour is transparent white
-        gc.setStroke(Color.rgb(255, 255, 255, 1));
-        gc.fillRect(0, 0, width, height);
+        sprites.paint(getGraphicsContext2D(), value.get(), BlockSprites.State.HOVER, width, height);
     }
 
 
@@ -133,42 +128,27 @@ public class GameBlock extends Canvas {
     }
 
     /**
-     * Handle painting of the block canvas
+     * Handle painting of the block canvas. Empty blocks are painted as empty, or as part of a hint if they are one,
+     * others with the colour represented by the value; either way it's a copy out of the pre-drawn sprites.
      */
-
     public void paint() {
-        //If the block is empty, paint as empty
-        if (value.get() == 0) {
-            paintEmpty();
+        if (hint != 0 && value.get() == 0) {
+            sprites.paint(getGraphicsContext2D(), hint, BlockSprites.State.HINT, width, height);
         } else {
-            //If the block is not empty, paint with the colour represented by the value
-            paintColor(COLOURS[value.get()]);
+            sprites.paint(getGraphicsContext2D(), value.get(), BlockSprites.State.PLAIN, width, height);
         }
-
     }
 
-
     /**
-     * Paint this canvas empty (the blocks)
+     * Show this block as part of a hint, or stop showing it
+     *
+     * @param hint the colour the hint would put here, or 0 to clear it
      */
-    private void paintEmpty() {
-        var gc = getGraphicsContext2D();
-
-        //Clear
-        gc.clearRect(0, 0, width, height);
-
-        //Fill with slight transparency on black colour
-        gc.setFill(new Color(0.6, 0.6, 0.6, 0.15));
-        gc.fillRect(0, 0, width, height);
-
-        //glow effect on the rects makes the pieces look shiny
-        Glow glow = new Glow();
-        glow.setLevel(0.6);
-        gc.applyEffect(glow);
-
-        //Border
-        gc.setStroke(Color.BLACK);
-        gc.strokeRect(0, 0, width, height);
+    public void setHint(int hint) {
+        if (this.hint != hint) {
+            this.hint = hint;
+            paint();
+        }
     }
 
 
@@ -176,58 +156,7 @@ public class GameBlock extends Canvas {
      * draw a circle on this gameblock
      */
     public void drawCircle() {
-        var gc = getGraphicsContext2D();
-
-        //clear rect and repaint rect so dont draw over previous circle
-        paint();
-
-        //colour is transparent white
-        gc.setFill(Color.rgb(128, 128, 128, 0.7));
-        gc.fillOval(0, 0, width, height);
-    }
-
-
-    /**
-     * Paint this canvas with the given colour
-     *
-     * @param colour the colour to paint
-     */
-    private void paintColor(Paint colour) {
-        var gc = getGraphicsContext2D();
-
-        //Clear
-        gc.clearRect(0, 0, width, height);
-
-        //create glow on the block
-        Glow glow = new Glow();
-        glow.setLevel(0.6);
-
-        //some lighting stuff. the lighting and glow gives a cartoony effect on the blocks
-        DirectionalLight light = new DirectionalLight();
-        light.setColor(Color.WHITE);
-        light.setTranslateX(150);
-        light.setTranslateY(0);
-        light.setTranslateZ(-200);
-
-        //draw effect
-        gc.applyEffect(glow);
-        gc.applyEffect(light.getEffect());
-
-        // Define the colours to make up the block
-        Color colourAsObject = (Color) colour; //expression cast is fine as this function only ever takes a colour object
-        Color colourStart = (Color) colour;
-        Color colourEnd = colourAsObject.desaturate().desaturate().darker().desaturate(); //just played around to get this value
-
-
-        //fill with a gradient, so block is not one colour throughout.
-        gc.setFill(new javafx.scene.paint.LinearGradient(0, 0, 1, 0, true, javafx.scene.paint.CycleMethod.NO_CYCLE,
-                new javafx.scene.paint.Stop(0, colourStart), new javafx.scene.paint.Stop(1, colourEnd)));
-
-        gc.fillRect(0, 0, width, height);
-
-        //Border
-        gc.setStroke(Color.BLACK);
-        gc.strokeRect(0, 0, width, height);
+        sprites.paint(getGraphicsContext2D(), value.get(), BlockSprites.State.CIRCLE, width, height);
     }
 
     /**
@@ -257,6 +186,15 @@ public class GameBlock extends Canvas {
         return this.value.get();
     }
 
+    /**
+     * Set the value of this block, repainting it if it changed
+     *
+     * @param value the new value
+     */
+    public void setValue(int value) {
+        this.value.set(value);
+    }
+
     /**
      * Bind the value of this block to another property. Used to link the visual block to a corresponding block in the Grid.
      *
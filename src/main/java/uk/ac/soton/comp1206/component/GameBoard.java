@@ -1,14 +1,22 @@
 package uk.ac.soton.comp1206.component;
 
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
+import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.event.BlockClickedListener;
 import uk.ac.soton.comp1206.event.RotateListener;
+import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.game.Grid;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A GameBoard is a visual component to represent the visual GameBoard.
  * It extends a GridPane to hold a grid of GameBlocks.
@@ -16,6 +24,9 @@ import uk.ac.soton.comp1206.game.Grid;
  * The GameBoard can hold an internal grid of it's own, for example, for displaying an upcoming block. It also be
  * linked to an external grid, for the main game board.
  * <p>
+ * The GameBoard listens to its grid for change sets, so everything changed by one update - a placed piece, or a whole
+ * line clear - is applied to the blocks in a single pass, and a clear gets a single animation.
+ * <p>
  * The GameBoard is only a visual representation and should not contain game logic or model logic in it, which should
  * take place in the Grid.
  */
@@ -23,6 +34,11 @@ public class GameBoard extends GridPane {
 
     private static final Logger logger = LogManager.getLogger(GameBoard.class);
 
+    /**
+     * How long cleared blocks take to fade back in
+     */
+    private static final Duration CLEAR_DURATION = Duration.millis(300);
+
     /**
      * Number of columns in the board
      */
@@ -53,6 +69,16 @@ public class GameBoard extends GridPane {
      */
     GameBlock[][] blocks;
 
+    /**
+     * The animation of the blocks which were cleared last, if it's still running
+     */
+    private Timeline clearAnimation;
+
+    /**
+     * The blocks showing a hint, if there is one
+     */
+    private final List<GameBlock> hintBlocks = new ArrayList<>();
+
     /**
      * The listener to call when a specific block is clicked
      */
@@ -137,6 +163,48 @@ public class GameBoard extends GridPane {
                 createBlock(x, y, highlightOnHover);
             }
         }
+
+        //Keep the blocks up to date with the grid, one change set at a time
+        grid.setGridChangeListener(this::gridChanged);
+    }
+
+    /**
+     * Apply a change set from the grid to the blocks. Any blocks which were emptied fade back in together.
+     *
+     * @param changed     the grid which changed
+     * @param changedRows the changed cells, bit x of changedRows[y] for the cell at x, y
+     */
+    private void gridChanged(Grid changed, long[] changedRows) {
+        Timeline animation = null;
+        for (var y = 0; y < rows; y++) {
+            long row = changedRows[y];
+            while (row != 0) {
+                int x = Long.numberOfTrailingZeros(row);
+                row &= row - 1;
+
+                GameBlock block = blocks[x][y];
+                int value = changed.get(x, y);
+                boolean cleared = block.getValue() != 0 && value == 0;
+                block.setValue(value);
+
+                if (cleared) {
+                    if (animation == null) {
+                        animation = new Timeline();
+                    }
+                    animation.getKeyFrames().add(new KeyFrame(Duration.ZERO, new KeyValue(block.opacityProperty(), 0.2)));
+                    animation.getKeyFrames().add(new KeyFrame(CLEAR_DURATION, new KeyValue(block.opacityProperty(), 1)));
+                }
+            }
+        }
+
+        if (animation != null) {
+            if (clearAnimation != null) {
+                clearAnimation.jumpTo(CLEAR_DURATION);
+                clearAnimation.stop();
+            }
+            clearAnimation = animation;
+            animation.play();
+        }
     }
 
     /**
@@ -158,8 +226,8 @@ public class GameBoard extends GridPane {
         //Add to our block directory
         blocks[x][y] = block;
 
-        //Link the GameBlock component to the corresponding value in the Grid
-        block.bind(grid.getGridProperty(x, y));
+        //Start the GameBlock component off with the corresponding value in the Grid. Changes come through gridChanged.
+        block.setValue(grid.get(x, y));
 
         //Add a mouse click handler to the block to trigger GameBoard blockClicked method
         block.setOnMouseClicked((e) -> blockClicked(e, block));
@@ -167,6 +235,39 @@ public class GameBoard extends GridPane {
         return block;
     }
 
+    /**
+     * Show where a piece could be played, replacing any hint already shown. Blocks the piece would cover are drawn
+     * faintly in its colour until the hint is cleared.
+     *
+     * @param piece the piece, rotated the way it would be played
+     * @param x     the column of its centre
+     * @param y     the row of its centre
+     */
+    public void showHint(GamePiece piece, int x, int y) {
+        clearHint();
+        int mask = piece.getMask();
+        for (int bit = 0; bit < 9; bit++) {
+            int blockX = x + bit % 3 - 1;
+            int blockY = y + bit / 3 - 1;
+            if ((mask >>> bit & 1) == 0 || blockX < 0 || blockY < 0 || blockX >= cols || blockY >= rows) {
+                continue;
+            }
+            GameBlock block = blocks[blockX][blockY];
+            block.setHint(piece.getValue());
+            hintBlocks.add(block);
+        }
+    }
+
+    /**
+     * Stop showing the hint, if there is one
+     */
+    public void clearHint() {
+        for (GameBlock block : hintBlocks) {
+            block.setHint(0);
+        }
+        hintBlocks.clear();
+    }
+
     /**
      * Set the listener to handle an event when a block is clicked
      *
@@ -34,11 +34,13 @@ public class PieceBoard extends GameBoard {
      */
     public void setPieceToDisplay(GamePiece gamePiece) {
         int[][] blocks = gamePiece.getBlocks();
+        grid.beginUpdate();
         for (int j = 0; j < this.rows; j++) {
             for (int i = 0; i < this.cols; i++) {
                 grid.set(i, j, blocks[i][j]);
             }
         }
+        grid.commitUpdate();
     }
 
     /**
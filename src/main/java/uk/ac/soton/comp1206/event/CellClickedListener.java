@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+
+/**
+ * The Cell Clicked listener is used to handle the event when a cell of a board without GameBlocks, such as a
+ * CanvasGameBoard, is clicked. It passes the coordinate of the cell that was clicked in the message
+ */
+public interface CellClickedListener {
+
+    /**
+     * Handle a cell clicked event
+     *
+     * @param cell the column and row of the cell that was clicked
+     */
+    public void cellClicked(GameBlockCoordinate cell);
+}
@@ -0,0 +1,24 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The inputs which drive a game: everything the player does, plus the timer running out. Replaying the same actions at
+ * the same times against a game with the same seed reproduces it exactly.
+ */
+public enum GameAction {
+    /**
+     * the player tried to place the current piece
+     */
+    PLACE,
+    /**
+     * the player rotated the current piece
+     */
+    ROTATE,
+    /**
+     * the player swapped the current and following pieces
+     */
+    SWAP,
+    /**
+     * the timer ran out on the current piece
+     */
+    TIMEOUT
+}
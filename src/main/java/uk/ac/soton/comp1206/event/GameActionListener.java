@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * listener which is told about every action applied to the game, along with the game clock at the time. Used to record
+ * replays.
+ */
+public interface GameActionListener {
+    /**
+     * method called whenever an action is applied to the game
+     *
+     * @param action what was done
+     * @param x      the column for PLACE, the number of rotations for ROTATE, otherwise 0
+     * @param y      the row for PLACE, otherwise 0
+     * @param time   the game clock when it was done, in nanoseconds
+     */
+    public void gameAction(GameAction action, int x, int y, long time);
+}
@@ -0,0 +1,52 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The things that can happen in a game. Fired by the game engine through a GameEventListener, so the UI can react
+ * (play sounds, reset animations, change scene) without the engine knowing anything about it.
+ */
+public enum GameEvent {
+    /**
+     * the current piece was placed on the board
+     */
+    PLACED,
+    /**
+     * the current piece could not be placed where it was played
+     */
+    PLACE_FAILED,
+    /**
+     * the current piece was rotated
+     */
+    ROTATED,
+    /**
+     * the current and following pieces were swapped
+     */
+    SWAPPED,
+    /**
+     * one or more lines were cleared by the last placement
+     */
+    LINES_CLEARED,
+    /**
+     * the level went up
+     */
+    LEVEL_UP,
+    /**
+     * neither the current nor the following piece fits anywhere on the board. The game's NoMovesPenalty follows.
+     */
+    NO_MOVES,
+    /**
+     * the timer ran out, or there were no moves left, and a life was lost
+     */
+    LIFE_LOST,
+    /**
+     * the last life was lost and the game is over
+     */
+    GAME_OVER,
+    /**
+     * the last move was undone
+     */
+    UNDONE,
+    /**
+     * the last move undone was played again
+     */
+    REDONE
+}
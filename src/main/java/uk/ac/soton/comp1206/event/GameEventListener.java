@@ -0,0 +1,14 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * listener which is told about everything that happens in the game engine. Used by the scenes to play sounds and update
+ * the display in response to the game.
+ */
+public interface GameEventListener {
+    /**
+     * method called whenever something happens in the game
+     *
+     * @param event what happened
+     */
+    public void gameEvent(GameEvent event);
+}
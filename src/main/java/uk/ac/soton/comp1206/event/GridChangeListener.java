@@ -0,0 +1,19 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * listener which is told whenever cells of a Grid change. A whole update - a placed piece, a line clear, or anything
+ * between beginUpdate and commitUpdate - arrives as one change set, so a display can redraw it in one pass without
+ * binding a property to every cell.
+ */
+public interface GridChangeListener {
+    /**
+     * method called once for every committed group of changes
+     *
+     * @param grid        the grid which changed. Read the new values from it.
+     * @param changedRows the changed cells: bit x of changedRows[y] is set when the cell at x, y changed. Only valid
+     *                    during the call, and must not be modified.
+     */
+    public void gridChanged(Grid grid, long[] changedRows);
+}
@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.simulation.Bot;
+
+/**
+ * listener which is told each time a HintSearch finds a better move. Used by the challenge scene to highlight it on the
+ * board.
+ */
+public interface HintListener {
+    /**
+     * method called with the best move found so far. Later calls for the same hint replace earlier ones.
+     *
+     * @param move     the move, or null if neither piece fits anywhere
+     * @param finished true if this is the last, most thorough search, false if a better one is still running
+     */
+    public void hintFound(Bot.Move move, boolean finished);
+}
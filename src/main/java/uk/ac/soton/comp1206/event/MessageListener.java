@@ -0,0 +1,18 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.network.Message;
+
+/**
+ * listener which is told about one kind of message from the server, already decoded. Subscribed through the
+ * Communicator, and called on the communicator's thread.
+ *
+ * @param <T> the kind of message
+ */
+public interface MessageListener<T extends Message> {
+    /**
+     * method called for each message of the kind subscribed to
+     *
+     * @param message the message
+     */
+    public void receiveMessage(T message);
+}
@@ -0,0 +1,63 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deals pieces from a shuffled bag holding one of every piece. When the bag is empty it is refilled and shuffled again,
+ * so every piece comes up exactly once in each run of 15 and droughts are impossible.
+ */
+public class BagPieceGenerator extends BufferedPieceGenerator {
+
+    /**
+     * The bag of piece numbers, shuffled
+     */
+    private final int[] bag = new int[GamePiece.PIECES];
+
+    /**
+     * How many pieces have been dealt from the bag
+     */
+    private int dealt = GamePiece.PIECES;
+
+    /**
+     * Create a bag generator
+     *
+     * @param seed      the seed
+     * @param lookahead how many pieces can be peeked at
+     */
+    public BagPieceGenerator(long seed, int lookahead) {
+        this(new SplittableRandom(seed), lookahead);
+    }
+
+    /**
+     * Create a bag generator from an existing random number generator
+     *
+     * @param random    the random number generator
+     * @param lookahead how many pieces can be peeked at
+     */
+    private BagPieceGenerator(SplittableRandom random, int lookahead) {
+        super(random, lookahead);
+        for (int piece = 0; piece < bag.length; piece++) {
+            bag[piece] = piece;
+        }
+    }
+
+    @Override
+    protected int generate() {
+        if (dealt == bag.length) {
+            //Fisher-Yates shuffle the bag ready to deal it again
+            for (int i = bag.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int temp = bag[i];
+                bag[i] = bag[j];
+                bag[j] = temp;
+            }
+            dealt = 0;
+        }
+        return bag[dealt++];
+    }
+
+    @Override
+    public PieceGenerator split() {
+        return new BagPieceGenerator(random.split(), getLookahead());
+    }
+}
@@ -0,0 +1,89 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * An immutable copy of the contents of a Grid at one moment, taken by Grid.snapshot() and put back by Grid.restore().
+ * <p>
+ * Snapshots are copy-on-write: the colours are held one row at a time, and a row which hasn't changed since the grid's
+ * previous snapshot is shared with it rather than copied. A run of snapshots taken one move apart only pays for the
+ * few rows each move touched, plus a long per row for the occupancy.
+ */
+public final class BoardSnapshot {
+
+    /**
+     * Number of columns of the grid it came from
+     */
+    final int cols;
+
+    /**
+     * Number of rows of the grid it came from
+     */
+    final int rows;
+
+    /**
+     * Which cells hold a block. Bit x of occupancy[y] is set when the cell at x, y is not empty.
+     */
+    final long[] occupancy;
+
+    /**
+     * The value (colour) of every cell, colourRows[y][x]. Rows may be shared with other snapshots, so are never
+     * written to.
+     */
+    final byte[][] colourRows;
+
+    /**
+     * Create a snapshot. Only Grid makes them.
+     *
+     * @param cols       number of columns
+     * @param rows       number of rows
+     * @param occupancy  the occupancy of each row, owned by the snapshot from now on
+     * @param colourRows the colours of each row, owned or shared by the snapshot from now on
+     */
+    BoardSnapshot(int cols, int rows, long[] occupancy, byte[][] colourRows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.occupancy = occupancy;
+        this.colourRows = colourRows;
+    }
+
+    /**
+     * Get the number of columns of the grid it came from
+     *
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows of the grid it came from
+     *
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the value of a cell when the snapshot was taken
+     *
+     * @param x column
+     * @param y row
+     * @return the value, or -1 if there is no such index
+     */
+    public int get(int x, int y) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) {
+            return -1;
+        }
+        return colourRows[y][x];
+    }
+
+    /**
+     * Get the occupancy of one row when the snapshot was taken. Bit x is set when the cell at x, y is not empty.
+     *
+     * @param y the row
+     * @return occupancy mask of the row
+     */
+    public long getRowOccupancy(int y) {
+        return occupancy[y];
+    }
+}
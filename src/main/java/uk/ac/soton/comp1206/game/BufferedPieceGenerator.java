@@ -0,0 +1,82 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * The shared part of the piece generators: the seeded random number generator and the lookahead buffer. Subclasses
+ * only have to say how the next piece number is chosen.
+ * <p>
+ * The buffer is a ring of piece numbers which is topped up lazily, so taking or peeking at pieces allocates nothing.
+ */
+abstract class BufferedPieceGenerator implements PieceGenerator {
+
+    /**
+     * The random number generator the pieces are chosen from
+     */
+    protected final SplittableRandom random;
+
+    /**
+     * Ring buffer of upcoming piece numbers
+     */
+    private final int[] buffer;
+
+    /**
+     * Where in the ring the next piece is
+     */
+    private int head = 0;
+
+    /**
+     * How many pieces are waiting in the ring
+     */
+    private int buffered = 0;
+
+    /**
+     * Create a generator
+     *
+     * @param random    the random number generator to choose pieces from
+     * @param lookahead how many pieces can be peeked at
+     */
+    protected BufferedPieceGenerator(SplittableRandom random, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("Lookahead must be at least 1: " + lookahead);
+        }
+        this.random = random;
+        this.buffer = new int[lookahead];
+    }
+
+    /**
+     * Choose the piece number to add to the end of the sequence
+     *
+     * @return piece number
+     */
+    protected abstract int generate();
+
+    @Override
+    public GamePiece next() {
+        GamePiece piece = peek(0);
+        head = (head + 1) % buffer.length;
+        buffered--;
+        return piece;
+    }
+
+    @Override
+    public GamePiece peek(int ahead) {
+        if (ahead < 0 || ahead >= buffer.length) {
+            throw new IndexOutOfBoundsException("Can only look " + buffer.length + " pieces ahead: " + ahead);
+        }
+        while (buffered <= ahead) {
+            buffer[(head + buffered) % buffer.length] = generate();
+            buffered++;
+        }
+        return GamePiece.createPiece(buffer[(head + ahead) % buffer.length]);
+    }
+
+    /**
+     * Get how many pieces can be peeked at
+     *
+     * @return lookahead
+     */
+    public int getLookahead() {
+        return buffer.length;
+    }
+}
@@ -3,22 +3,52 @@ package uk.ac.soton.comp1206.game;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.component.GameBlock;
+import uk.ac.soton.comp1206.event.GameAction;
+import uk.ac.soton.comp1206.event.GameActionListener;
+import uk.ac.soton.comp1206.event.GameEvent;
+import uk.ac.soton.comp1206.event.GameEventListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
-import uk.ac.soton.comp1206.event.PiecePlacedListener;
-import uk.ac.soton.comp1206.helpers.Multimedia;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The Game class handles the main logic, state and properties of the TetrECS game. Methods to manipulate the game state
  * and to handle actions made by the player should take place inside this class.
+ * <p>
+ * The game is a headless engine: it is driven by place, rotate, swap and tick, and reports what happened through a
+ * GameEventListener. It never plays sounds or touches the scene graph itself, so it can run without a JavaFX toolkit.
+ * The score, level, lives and multiplier are plain ints; the JavaFX properties returned by getScore() etc. are only a
+ * view, created the first time they are asked for.
+ * <p>
+ * Placing a piece allocates nothing once the game is running: pieces are shared flyweights, the grid is a bitboard and
+ * the hot path only logs at trace level, so play doesn't churn the garbage collector.
+ * <p>
+ * The whole state of a game can be saved with snapshot() and put back with restore(), which bots can use to try a move
+ * and take it back. With undo enabled (for practice), the game takes a snapshot before every placement, rotation and
+ * swap, and undo() and redo() step back and forth through them as far as the player likes. Once snapshots are in use
+ * the game remembers every piece it spawns, so going back and playing on deals the same pieces again.
  */
 public class Game {
 
     private static final Logger logger = LogManager.getLogger(Game.class);
 
+    /**
+     * The number of nanoseconds in a millisecond
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * What happens, unless set otherwise, when neither piece fits anywhere
+     */
+    public static final NoMovesPenalty DEFAULT_NO_MOVES_PENALTY = NoMovesPenalty.GAME_OVER;
+
+    /**
+     * lastReading before advanceTo has been called
+     */
+    private static final long NO_READING = Long.MIN_VALUE;
+
     /**
      * Number of rows
      */
@@ -44,21 +74,109 @@ public class Game {
     private GamePiece followingPiece;
 
     /**
-     * the game score. Simple integer property so it can be displayed on the screen
+     * the game score
+     */
+    private int score = 0;
+    /**
+     * the game level
+     */
+    private int level = 0;
+    /**
+     * the amount of lives left
+     */
+    private int lives = 3;
+    /**
+     * the game multiplier
+     */
+    private int multiplier = 1;
+
+    /**
+     * the view of the score, so it can be displayed on the screen. Null until asked for.
+     */
+    private SimpleIntegerProperty scoreProperty;
+    /**
+     * the view of the level, so it can be displayed on the screen. Null until asked for.
+     */
+    private SimpleIntegerProperty levelProperty;
+    /**
+     * the view of the lives, so it can be displayed on the screen. Null until asked for.
+     */
+    private SimpleIntegerProperty livesProperty;
+    /**
+     * the view of the multiplier, so it can be displayed on the screen. Null until asked for.
+     */
+    private SimpleIntegerProperty multiplierProperty;
+
+    /**
+     * the game clock: the total time ticked since the game started, in nanoseconds
+     */
+    private long clock = 0;
+
+    /**
+     * the game clock when the current piece started waiting to be played, in nanoseconds
+     */
+    private long pieceStart = 0;
+
+    /**
+     * the game clock at which the current piece runs out of time, in nanoseconds. Never reached until the game starts.
+     */
+    private long deadline = Long.MAX_VALUE;
+
+    /**
+     * the last reading of the monotonic clock passed to advanceTo, or NO_READING before the first one
+     */
+    private long lastReading = NO_READING;
+
+    /**
+     * true once the last life has been lost, or the game has been ended for having no moves left
+     */
+    private boolean gameOver = false;
+
+    /**
+     * what happens when neither piece fits anywhere
+     */
+    private NoMovesPenalty noMovesPenalty = DEFAULT_NO_MOVES_PENALTY;
+
+    /**
+     * whether each piece has a time limit
+     */
+    private boolean timed = true;
+
+    /**
+     * how many pieces have been spawned
+     */
+    private int spawned = 0;
+
+    /**
+     * every piece spawned since the first snapshot, so restoring a snapshot deals the same pieces again. Null until
+     * the first snapshot, so a game which never takes one doesn't keep them.
+     */
+    private GamePiece[] spawnLog;
+
+    /**
+     * how many pieces are in spawnLog
+     */
+    private int spawnLogLength = 0;
+
+    /**
+     * the value of spawned when the first piece went in spawnLog
      */
-    private SimpleIntegerProperty score = new SimpleIntegerProperty(0);
+    private int spawnLogStart = 0;
+
     /**
-     * the game level. Simple integer property so it can be displayed on the screen
+     * the states to go back to with undo, most recent first. Null unless undo is enabled.
      */
-    private SimpleIntegerProperty level = new SimpleIntegerProperty(0);
+    private ArrayDeque<GameSnapshot> undoStack;
+
     /**
-     * the amount of lives left. Simple integer property so it can be displayed on the screen
+     * the states undone, to go forward to with redo, most recent first. Null unless undo is enabled.
      */
-    private SimpleIntegerProperty lives = new SimpleIntegerProperty(3);
+    private ArrayDeque<GameSnapshot> redoStack;
+
     /**
-     * the game multiplier. Simple integer property so it can be displayed on the screen
+     * decides which pieces to spawn
      */
-    private SimpleIntegerProperty multiplier = new SimpleIntegerProperty(1);
+    private final PieceGenerator pieceGenerator;
 
     /**
      * the listener which is called when the next piece needs to be swapped with the following piece.
@@ -66,9 +184,14 @@ public class Game {
     private NextPieceListener nextPieceListener;
 
     /**
-     * The listener which is called when a piece is successfully placed=
+     * the listener which is told about everything that happens in the game
      */
-    private PiecePlacedListener piecePlacedListener;
+    private GameEventListener gameEventListener;
+
+    /**
+     * the listener which is told about every action applied to the game
+     */
+    private GameActionListener gameActionListener;
 
 
     /**
@@ -78,8 +201,32 @@ public class Game {
      * @param rows number of rows
      */
     public Game(int cols, int rows) {
+        this(cols, rows, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Create a new game with the specified rows and columns, whose pieces are picked from the given seed. Two games
+     * with the same seed get the same pieces in the same order.
+     *
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed seed for picking pieces
+     */
+    public Game(int cols, int rows, long seed) {
+        this(cols, rows, PieceGenerator.uniform(seed));
+    }
+
+    /**
+     * Create a new game with the specified rows and columns, whose pieces come from the given generator.
+     *
+     * @param cols           number of columns
+     * @param rows           number of rows
+     * @param pieceGenerator decides which pieces to spawn
+     */
+    public Game(int cols, int rows, PieceGenerator pieceGenerator) {
         this.cols = cols;
         this.rows = rows;
+        this.pieceGenerator = pieceGenerator;
 
         //Create a new grid model to represent the game state
         this.grid = new Grid(cols, rows);
@@ -100,35 +247,336 @@ public class Game {
         logger.info("Initialising game");
         currentPiece = spawnPiece();
         followingPiece = spawnPiece();
+        resetTimer();
         //trigger listener
         callPieceUpdatedListener();
+        checkForMoves();
     }
 
     /**
-     * Handle what should happen when a particular block is clicked
+     * Attempt to play the current piece centred on the given block
      *
-     * @param gameBlock the block that was clicked
+     * @param x column of the block
+     * @param y row of the block
+     * @return true if the piece was placed
      */
-    public void blockClicked(GameBlock gameBlock) {
-        //called when a block is clicked (logger already logs a block has been clicked hence the no logger statement)
+    public boolean place(int x, int y) {
+        if (gameOver) {
+            return false;
+        }
+        callGameActionListener(GameAction.PLACE, x, y);
+        if (!grid.canPlayPiece(currentPiece, x, y)) {
+            callGameEventListener(GameEvent.PLACE_FAILED);
+            return false;
+        }
 
-        //Get the position of this block
-        int x = gameBlock.getX();
-        int y = gameBlock.getY();
+        //the undo snapshot has to be taken before the board changes, so the piece is checked once, here
+        saveForUndo();
+        grid.placePiece(currentPiece, x, y);
+        callGameEventListener(GameEvent.PLACED);
+        //handle the after-piece shenanigans (clear lines , gen next piece, update timer)
+        nextPiece();
+        afterPiece();
+        resetTimer();
+        checkForMoves();
+        return true;
+    }
 
+    /**
+     * rotates the current piece.
+     *
+     * @param noRotations the amount of clockwise 90 degree rotations to perform
+     */
+    public void rotate(int noRotations) {
+        if (gameOver) {
+            return;
+        }
+        callGameActionListener(GameAction.ROTATE, noRotations, 0);
+        saveForUndo();
+        currentPiece = currentPiece.rotate(noRotations);
+        callPieceUpdatedListener();
+        callGameEventListener(GameEvent.ROTATED);
+    }
 
-        //attempt to play the piece
-        if (grid.playPiece(currentPiece, x, y)) {
-            Multimedia.playAudioFile(Multimedia.SOUND.PLACE);
-            //handle the after-piece shenanigans (clear lines , gen next piece, update timer)
-            nextPiece();
-            afterPiece();
-            callPiecePlacedListener();
+    /**
+     * swaps the 2 pieces the player can use.
+     */
+    public void swap() {
+        if (gameOver) {
+            return;
+        }
+        callGameActionListener(GameAction.SWAP, 0, 0);
+        saveForUndo();
+        logger.trace("Switching pieces");
+        GamePiece temp = currentPiece;
+        currentPiece = followingPiece;
+        followingPiece = temp;
+
+        //trigger listener, as challenge scene needs to display different pieces
+        callPieceUpdatedListener();
+        callGameEventListener(GameEvent.SWAPPED);
+    }
+
+    /**
+     * Save the whole state of the game. Cheap enough to take one every move: the board only copies the rows changed
+     * since the last snapshot.
+     *
+     * @return the snapshot
+     */
+    public GameSnapshot snapshot() {
+        if (spawnLog == null) {
+            //from now on remember the pieces, so a restored snapshot gets the same ones again
+            spawnLog = new GamePiece[64];
+            spawnLogStart = spawned;
+        }
+        return new GameSnapshot(this, grid.snapshot(), currentPiece, followingPiece, spawned, score, level, lives,
+                multiplier, clock, pieceStart, deadline, gameOver);
+    }
+
+    /**
+     * Put the game back exactly as it was when a snapshot was taken. The pieces spawned after it are dealt again in
+     * the same order. Listeners are told about the new pieces and the changed cells, but no action is recorded.
+     *
+     * @param snapshot a snapshot of this game
+     */
+    public void restore(GameSnapshot snapshot) {
+        if (snapshot.game != this) {
+            throw new IllegalArgumentException("Snapshot is of a different game");
+        }
+        grid.restore(snapshot.board);
+        currentPiece = snapshot.currentPiece;
+        followingPiece = snapshot.followingPiece;
+        spawned = snapshot.spawned;
+        setScore(snapshot.score);
+        setLevel(snapshot.level);
+        setLives(snapshot.lives);
+        setMultiplier(snapshot.multiplier);
+        clock = snapshot.clock;
+        pieceStart = snapshot.pieceStart;
+        deadline = snapshot.deadline;
+        gameOver = snapshot.gameOver;
+        callPieceUpdatedListener();
+    }
+
+    /**
+     * Turn undo on or off. Turning it off forgets everything that could be undone or redone.
+     *
+     * @param undoEnabled true to keep a snapshot before every move
+     */
+    public void setUndoEnabled(boolean undoEnabled) {
+        if (undoEnabled && undoStack == null) {
+            undoStack = new ArrayDeque<>();
+            redoStack = new ArrayDeque<>();
+        } else if (!undoEnabled) {
+            undoStack = null;
+            redoStack = null;
+        }
+    }
+
+    /**
+     * Check whether undo is on
+     *
+     * @return true if moves can be undone
+     */
+    public boolean isUndoEnabled() {
+        return undoStack != null;
+    }
+
+    /**
+     * Take back the last placement, rotation or swap, along with anything that happened after it (lines cleared,
+     * lives lost, time passed). Undo is not recorded as an action, so a game using it can't be replayed.
+     *
+     * @return false if undo is off or there is nothing to undo
+     */
+    public boolean undo() {
+        if (undoStack == null || undoStack.isEmpty()) {
+            return false;
+        }
+        logger.info("Undo");
+        redoStack.push(snapshot());
+        restore(undoStack.pop());
+        callGameEventListener(GameEvent.UNDONE);
+        return true;
+    }
+
+    /**
+     * Play back the last move undone. Making any other move first forgets what could be redone.
+     *
+     * @return false if undo is off or there is nothing to redo
+     */
+    public boolean redo() {
+        if (redoStack == null || redoStack.isEmpty()) {
+            return false;
+        }
+        logger.info("Redo");
+        undoStack.push(snapshot());
+        restore(redoStack.pop());
+        callGameEventListener(GameEvent.REDONE);
+        return true;
+    }
+
+    /**
+     * If undo is on, save the game as it is before a move is made, and forget anything that could be redone
+     */
+    private void saveForUndo() {
+        if (undoStack != null) {
+            undoStack.push(snapshot());
+            redoStack.clear();
+        }
+    }
+
+    /**
+     * Advance the game clock. Every deadline passed on the way costs a life and replaces the current piece, and each
+     * one happens exactly at its deadline however big the step is, so a stalled frame can't skip past one.
+     *
+     * @param nanos how much time has passed since the last tick, in nanoseconds
+     */
+    public void tick(long nanos) {
+        long target = clock + nanos;
+        while (!gameOver && deadline <= target) {
+            clock = deadline;
+            logger.info("detected that life should be lost");
+            callGameActionListener(GameAction.TIMEOUT, 0, 0);
+            loseLife();
+        }
+        if (!gameOver) {
+            clock = target;
+        }
+    }
+
+    /**
+     * Advance the game clock to a reading of a monotonic clock, such as System.nanoTime() or the timestamp an
+     * AnimationTimer is given. The first call only starts counting from that reading.
+     *
+     * @param now the monotonic clock reading, in nanoseconds
+     */
+    public void advanceTo(long now) {
+        if (lastReading != NO_READING && now > lastReading) {
+            tick(now - lastReading);
+        }
+        lastReading = now;
+    }
+
+    /**
+     * Start the timer for the current piece from the current game clock
+     */
+    private void resetTimer() {
+        pieceStart = clock;
+        deadline = timed ? clock + getTimerDelay() * NANOS_PER_MILLI : Long.MAX_VALUE;
+    }
+
+    /**
+     * Check whether either piece can still be played, and apply the no moves penalty if neither can. Called whenever
+     * the board or the pieces change in a way that could leave the player stuck.
+     */
+    private void checkForMoves() {
+        if (gameOver || noMovesPenalty == NoMovesPenalty.NONE) {
+            return;
+        }
+        if (grid.hasLegalPlacement(currentPiece) || grid.hasLegalPlacement(followingPiece)) {
+            return;
+        }
+
+        logger.info("No moves left");
+        callGameEventListener(GameEvent.NO_MOVES);
+        if (noMovesPenalty == NoMovesPenalty.GAME_OVER) {
+            gameOver = true;
+            callGameEventListener(GameEvent.GAME_OVER);
         } else {
-            Multimedia.playAudioFile(Multimedia.SOUND.FAIL);
+            loseLife();
         }
     }
 
+    /**
+     * Lose a life and replace the current piece, because the timer ran out or there were no moves left. Ends the game
+     * if it was the last one.
+     */
+    private void loseLife() {
+        resetTimer();
+        setLives(lives - 1);
+
+        //if no lives are left die
+        if (lives == 0) {
+            logger.info("lost");
+            gameOver = true;
+            callGameEventListener(GameEvent.GAME_OVER);
+            return;
+        }
+
+        //change the current piece
+        replaceCurrentPiece();
+        callGameEventListener(GameEvent.LIFE_LOST);
+        //the new piece might not fit either
+        checkForMoves();
+    }
+
+    /**
+     * Get how long the player has to play each piece at the current level.
+     * formula as spec : 12000 - (500 * currentLevel) : min value 2500
+     *
+     * @return the timer delay in milliseconds
+     */
+    public int getTimerDelay() {
+        return Math.max(2500, 12000 - (500 * level));
+    }
+
+    /**
+     * Get how long the current piece has been waiting to be played
+     *
+     * @return time elapsed in nanoseconds
+     */
+    public long getTimerElapsed() {
+        return clock - pieceStart;
+    }
+
+    /**
+     * Get when the current piece runs out of time
+     *
+     * @return the game clock at the deadline, in nanoseconds
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Get how long is left to play the current piece
+     *
+     * @return time remaining in nanoseconds
+     */
+    public long getTimeRemaining() {
+        return Math.max(0, deadline - clock);
+    }
+
+    /**
+     * Get the game clock
+     *
+     * @return the total time ticked since the game started, in nanoseconds
+     */
+    public long getClock() {
+        return clock;
+    }
+
+    /**
+     * Get the Zobrist hash of the position: the board, the current and following pieces and the multiplier. The
+     * board's part is kept up to date by the grid as it changes, so this is cheap. Rotations of the current piece
+     * hash the same, as the player can turn it freely.
+     *
+     * @return the hash
+     */
+    public long getHash() {
+        return grid.getHash() ^ Zobrist.piece(0, currentPiece) ^ Zobrist.piece(1, followingPiece)
+                ^ Zobrist.multiplier(multiplier);
+    }
+
+    /**
+     * Check whether the game has ended
+     *
+     * @return true once the last life has been lost
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
     /**
      * Get the grid model inside this game representing the game state of the board
      *
@@ -156,15 +604,73 @@ public class Game {
         return rows;
     }
 
+    /**
+     * Get the piece the player can directly play
+     *
+     * @return the current piece
+     */
+    public GamePiece getCurrentPiece() {
+        return currentPiece;
+    }
+
+    /**
+     * Get the piece the player can swap with
+     *
+     * @return the following piece
+     */
+    public GamePiece getFollowingPiece() {
+        return followingPiece;
+    }
+
+    /**
+     * Get the generator the pieces come from. Use peekPiece to look at upcoming pieces, as after a restore the next
+     * few may come from the game's own record rather than the generator.
+     *
+     * @return the piece generator
+     */
+    public PieceGenerator getPieceGenerator() {
+        return pieceGenerator;
+    }
+
+    /**
+     * Look at a piece which will be spawned, without spawning it
+     *
+     * @param ahead how far ahead to look, 0 is the next piece spawned
+     * @return the upcoming piece
+     */
+    public GamePiece peekPiece(int ahead) {
+        int logged = spawned - spawnLogStart + ahead;
+        if (spawnLog != null && logged < spawnLogLength) {
+            return spawnLog[logged];
+        }
+        int fromLog = spawnLog == null ? 0 : Math.max(0, spawnLogLength - (spawned - spawnLogStart));
+        return pieceGenerator.peek(ahead - fromLog);
+    }
+
     /**
      * Creates a new piece for the game to use
      *
      * @return the piece spawned in
      */
-    private GamePiece spawnPiece() {
-        Random rng = new Random();
-        GamePiece newPiece = GamePiece.createPiece(rng.nextInt(0, GamePiece.PIECES));
-        logger.info("Spawned piece : " + newPiece);
+    //package-private so the benchmarks can reach it
+    GamePiece spawnPiece() {
+        GamePiece newPiece;
+        int logged = spawned - spawnLogStart;
+        if (spawnLog != null && logged < spawnLogLength) {
+            //been here before, from a restored snapshot
+            newPiece = spawnLog[logged];
+        } else {
+            newPiece = pieceGenerator.next();
+            if (spawnLog != null) {
+                if (spawnLogLength == spawnLog.length) {
+                    spawnLog = Arrays.copyOf(spawnLog, spawnLog.length * 2);
+                }
+                spawnLog[spawnLogLength++] = newPiece;
+            }
+        }
+        spawned++;
+        //parameterised and at trace, so placing a piece doesn't build a string nobody reads
+        logger.trace("Spawned piece : {}", newPiece);
         return newPiece;
     }
 
@@ -173,7 +679,7 @@ public class Game {
      * -> (Used when a piece is successfully played so a new piece needs to be put in followingPiece)
      */
     private void nextPiece() {
-        logger.info("Switching to next piece");
+        logger.trace("Switching to next piece");
         currentPiece = followingPiece;
         followingPiece = spawnPiece();
 
@@ -190,98 +696,62 @@ public class Game {
     }
 
     /**
-     * swaps the 2 pieces the player can use.
+     * used by the gamepieces to display the right piece
      */
-    public void swapPieces() {
-        logger.info("Switching pieces");
-        GamePiece temp = currentPiece;
-        currentPiece = followingPiece;
-        followingPiece = temp;
-
-        //trigger listener, as challenge scene needs to display different pieces
-        callPieceUpdatedListener();
+    private void callPieceUpdatedListener() {
+        if (nextPieceListener != null) {
+            nextPieceListener.nextPiece(currentPiece, followingPiece);
+        }
     }
 
     /**
-     * used by the gamepieces to display the right piece
+     * tell the game event listener something has happened
+     *
+     * @param event what happened
      */
-    private void callPieceUpdatedListener() {
-        nextPieceListener.nextPiece(currentPiece, followingPiece);
+    private void callGameEventListener(GameEvent event) {
+        if (gameEventListener != null) {
+            gameEventListener.gameEvent(event);
+        }
     }
 
+
     /**
-     * used by the timer to detect when a piece has been succesfully played
+     * tell the game action listener an action has been applied
+     *
+     * @param action what was done
+     * @param x      the column for PLACE, the number of rotations for ROTATE, otherwise 0
+     * @param y      the row for PLACE, otherwise 0
      */
-    private void callPiecePlacedListener() {
-        piecePlacedListener.detectPiecePlaced();
+    private void callGameActionListener(GameAction action, int x, int y) {
+        if (gameActionListener != null) {
+            gameActionListener.gameAction(action, x, y, clock);
+        }
     }
 
-
     /**
      * checks if any horizontal or vertical lines are full and need to be cleared
      * Clears said lines if that is the case.
      */
-    private void afterPiece() {
-
-        Boolean isHorizontalFull = true; //true if a whole horizontal is full
-        Boolean isVerticalFull = true; //true if a whole vertical is full
-        ArrayList<Integer> horizontalsToClear = new ArrayList<Integer>(); //the horizontal lines to clear
-        ArrayList<Integer> verticalsToClear = new ArrayList<Integer>(); //the vertical lines to clear
-
-        for (int j = 0; j < grid.getRows(); j++) { //go through the cols (iterates downwards)
-            for (int i = 0; i < grid.getCols(); i++) { //go through the rows (iterates right)
-
-                //i j get swapped in vertical check. Means for loop will iterate downwards for vertical
-                //and to the right for horizontal.
-
-                if (grid.get(i, j) == 0) { //if space is empty on the horizontal
-                    isHorizontalFull = false;
-                }
-
-                if (grid.get(j, i) == 0) { //if space is empty on the vertical
-                    isVerticalFull = false;
-                }
-            }
-            if (isHorizontalFull) { //if the line is full mark it for clearing
-                horizontalsToClear.add(j);
-                logger.info("Detected horizontal : " + j + " should be cleared");
-            }
-            if (isVerticalFull) {
-                verticalsToClear.add(j);
-                logger.info("Detected vertical : " + j + " should be cleared");
-            }
-            //reset vertical and horizontal
-            isHorizontalFull = true;
-            isVerticalFull = true;
-        }
+    //package-private so the benchmarks can reach it
+    void afterPiece() {
+        //the grid keeps track of which lines are full as pieces are placed
+        long horizontalsToClear = grid.getFullRows();
+        long verticalsToClear = grid.getFullColumns();
+        int noHorizontals = Long.bitCount(horizontalsToClear);
+        int noVerticals = Long.bitCount(verticalsToClear);
 
         //calculate score
-        int amountOfBlocksCleared = 5 * (verticalsToClear.size() + horizontalsToClear.size());
-
-        //adjust for overlapping lines
-        //if a number is in both verticalToClear and horizontalToClear then they overlap.
-        for (int x : horizontalsToClear) {
-            if (verticalsToClear.contains(x)) {
-                amountOfBlocksCleared = amountOfBlocksCleared - 1; //overlap, so one less block is cleared than whats expected
-            }
-        }
+        //every horizontal crosses every vertical once, so take off the overlapping blocks
+        int amountOfBlocksCleared = noHorizontals * grid.getCols() + noVerticals * grid.getRows()
+                - noHorizontals * noVerticals;
 
-        calculateAndUpdateScore(verticalsToClear.size() + horizontalsToClear.size(), amountOfBlocksCleared);
+        calculateAndUpdateScore(noHorizontals + noVerticals, amountOfBlocksCleared);
 
         //clear the lines
-        //clear horizontals
-        for (Integer row : horizontalsToClear) {
-            for (int i = 0; i < grid.getCols(); i++) { //i goes right
-                grid.set(i, row, 0);
-
-            }
-        }
-
-        //clear verticals
-        for (Integer col : verticalsToClear) {
-            for (int j = 0; j < grid.getRows(); j++) { //j goes downwards
-                grid.set(col, j, 0);
-            }
+        if (horizontalsToClear != 0 || verticalsToClear != 0) {
+            logger.trace("Clearing {} horizontals and {} verticals", noHorizontals, noVerticals);
+            grid.clearLines(horizontalsToClear, verticalsToClear);
         }
     }
 
@@ -291,26 +761,78 @@ public class Game {
      * @param noLines  The number of lines cleared by the play
      * @param noBlocks The number of blocks cleared by the play
      */
-    private void calculateAndUpdateScore(int noLines, int noBlocks) {
-        //formula:
-        //score = score + (numberOfLinesCleared * numberOfBlocksCleared * 10 * currentMultiplier)
-        score.set(score.get() + (noLines * noBlocks * 10 * multiplier.get()));
+    //package-private so the benchmarks can reach it
+    void calculateAndUpdateScore(int noLines, int noBlocks) {
+        setScore(score + scoreFor(noLines, noBlocks, multiplier));
 
         //update the level
         //increases level by one for every 1000 score.
-        level.set(Math.floorDiv(score.get(), 1000));
+        int newLevel = Math.floorDiv(score, 1000);
+        if (newLevel != level) {
+            setLevel(newLevel);
+            callGameEventListener(GameEvent.LEVEL_UP);
+        }
 
         //set multiplier
         //if a line has been cleared add 1 to the multiplier. If not, set the multiplier back to one.
-        //checks if a line has been cleared so can also add the sound here
         if (noLines != 0) {
-            multiplier.set(multiplier.get() + 1);
-            Multimedia.playAudioFile(Multimedia.SOUND.CLEAR);
+            setMultiplier(multiplier + 1);
+            callGameEventListener(GameEvent.LINES_CLEARED);
         } else {
-            multiplier.set(1);
+            setMultiplier(1);
         }
     }
 
+    /**
+     * Work out the points a placement scores
+     * formula: numberOfLinesCleared * numberOfBlocksCleared * 10 * currentMultiplier
+     *
+     * @param noLines    The number of lines cleared by the play
+     * @param noBlocks   The number of blocks cleared by the play
+     * @param multiplier the multiplier before the play
+     * @return the points scored
+     */
+    public static int scoreFor(int noLines, int noBlocks, int multiplier) {
+        return noLines * noBlocks * 10 * multiplier;
+    }
+
+    /**
+     * Get what happens when neither piece fits anywhere
+     *
+     * @return the no moves penalty
+     */
+    public NoMovesPenalty getNoMovesPenalty() {
+        return noMovesPenalty;
+    }
+
+    /**
+     * Set what happens when neither piece fits anywhere. Should be set before the game starts.
+     *
+     * @param noMovesPenalty the no moves penalty
+     */
+    public void setNoMovesPenalty(NoMovesPenalty noMovesPenalty) {
+        this.noMovesPenalty = noMovesPenalty;
+    }
+
+    /**
+     * Check whether each piece has a time limit
+     *
+     * @return true if the timer can run out
+     */
+    public boolean isTimed() {
+        return timed;
+    }
+
+    /**
+     * Set whether each piece has a time limit. Without one the timer never runs out. Should be set before the game
+     * starts.
+     *
+     * @param timed true if the timer can run out
+     */
+    public void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
     /**
      * set the next piece listener.
      *
@@ -321,59 +843,152 @@ public class Game {
     }
 
     /**
-     * set the piece placed listener
+     * set the game event listener
      *
-     * @param piecePlacedListener the function to set
+     * @param gameEventListener the function to set
      */
-    public void setPiecePlacedListener(PiecePlacedListener piecePlacedListener) {
-        this.piecePlacedListener = piecePlacedListener;
+    public void setGameEventListener(GameEventListener gameEventListener) {
+        this.gameEventListener = gameEventListener;
     }
 
-
     /**
-     * rotates the current piece.
+     * set the game action listener
      *
-     * @param noRotations the amount of clockwise 90 degree rotations to perform
+     * @param gameActionListener the function to set
      */
-    public void rotateCurrentPiece(int noRotations) {
-        currentPiece.rotate(noRotations);
-        callPieceUpdatedListener();
-        Multimedia.playAudioFile(Multimedia.SOUND.ROTATE);
+    public void setGameActionListener(GameActionListener gameActionListener) {
+        this.gameActionListener = gameActionListener;
     }
 
     /**
-     * gets score
+     * gets the score value
      *
      * @return this.score
      */
-    public SimpleIntegerProperty getScore() {
+    public int getScoreValue() {
         return score;
     }
 
     /**
-     * gets lives
+     * gets the lives value
      *
      * @return this.lives
      */
-    public SimpleIntegerProperty getLives() {
+    public int getLivesValue() {
         return lives;
     }
 
     /**
-     * gets levvel
+     * gets the level value
      *
      * @return this.level
      */
-    public SimpleIntegerProperty getLevel() {
+    public int getLevelValue() {
         return level;
     }
 
     /**
-     * gets multiplier
+     * gets the multiplier value
      *
      * @return this.multiplier
      */
-    public SimpleIntegerProperty getMultiplier() {
+    public int getMultiplierValue() {
         return multiplier;
     }
+
+    /**
+     * gets score, as a property which can be bound to
+     *
+     * @return view of this.score
+     */
+    public SimpleIntegerProperty getScore() {
+        if (scoreProperty == null) {
+            scoreProperty = new SimpleIntegerProperty(score);
+        }
+        return scoreProperty;
+    }
+
+    /**
+     * gets lives, as a property which can be bound to
+     *
+     * @return view of this.lives
+     */
+    public SimpleIntegerProperty getLives() {
+        if (livesProperty == null) {
+            livesProperty = new SimpleIntegerProperty(lives);
+        }
+        return livesProperty;
+    }
+
+    /**
+     * gets levvel, as a property which can be bound to
+     *
+     * @return view of this.level
+     */
+    public SimpleIntegerProperty getLevel() {
+        if (levelProperty == null) {
+            levelProperty = new SimpleIntegerProperty(level);
+        }
+        return levelProperty;
+    }
+
+    /**
+     * gets multiplier, as a property which can be bound to
+     *
+     * @return view of this.multiplier
+     */
+    public SimpleIntegerProperty getMultiplier() {
+        if (multiplierProperty == null) {
+            multiplierProperty = new SimpleIntegerProperty(multiplier);
+        }
+        return multiplierProperty;
+    }
+
+    /**
+     * sets the score, updating the view if there is one
+     *
+     * @param score the new score
+     */
+    private void setScore(int score) {
+        this.score = score;
+        if (scoreProperty != null) {
+            scoreProperty.set(score);
+        }
+    }
+
+    /**
+     * sets the lives, updating the view if there is one
+     *
+     * @param lives the new number of lives
+     */
+    private void setLives(int lives) {
+        this.lives = lives;
+        if (livesProperty != null) {
+            livesProperty.set(lives);
+        }
+    }
+
+    /**
+     * sets the level, updating the view if there is one
+     *
+     * @param level the new level
+     */
+    private void setLevel(int level) {
+        this.level = level;
+        if (levelProperty != null) {
+            levelProperty.set(level);
+        }
+    }
+
+    /**
+     * sets the multiplier, updating the view if there is one
+     *
+     * @param multiplier the new multiplier
+     */
+    private void setMultiplier(int multiplier) {
+        this.multiplier = multiplier;
+        if (multiplierProperty != null) {
+            multiplierProperty.set(multiplier);
+        }
+    }
 }
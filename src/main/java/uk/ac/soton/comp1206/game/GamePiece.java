@@ -3,6 +3,10 @@ package uk.ac.soton.comp1206.game;
 /**
  * Instances of GamePiece Represents the model of a specific Game Piece with it's block makeup.
  * <p>
+ * GamePieces are immutable flyweights. Every piece type in every rotation is built once when the class loads and held
+ * in a table, so creating, spawning and rotating a piece just hands back one of those shared references. Each entry
+ * keeps both its 3x3 block array and a 9 bit mask of the same shape.
+ * <p>
  * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as specified by it's
  * number.
  */
@@ -14,9 +18,51 @@ public class GamePiece {
     public static final int PIECES = 15;
 
     /**
-     * The 2D grid representation of the shape of this piece
+     * The number of distinct rotations of each piece
+     */
+    public static final int ROTATIONS = 4;
+
+    /**
+     * Every piece in every rotation, indexed by [piece number][rotation]
+     */
+    private static final GamePiece[][] TABLE = new GamePiece[PIECES][ROTATIONS];
+
+    /**
+     * How many rotations of each piece actually look different: 1, 2 or 4
+     */
+    private static final int[] DISTINCT_ROTATIONS = new int[PIECES];
+
+    static {
+        for (int piece = 0; piece < PIECES; piece++) {
+            GamePiece base = buildPiece(piece);
+            TABLE[piece][0] = base;
+            int[][] blocks = base.blocks;
+            for (int rotation = 1; rotation < ROTATIONS; rotation++) {
+                blocks = rotated(blocks);
+                TABLE[piece][rotation] = new GamePiece(base.name, blocks, base.value, rotation);
+            }
+
+            //rotations repeat with a period of 1, 2 or 4, so the distinct ones always come first
+            int distinct = ROTATIONS;
+            for (int period = 1; period < ROTATIONS; period *= 2) {
+                if (TABLE[piece][period].mask == base.mask) {
+                    distinct = period;
+                    break;
+                }
+            }
+            DISTINCT_ROTATIONS[piece] = distinct;
+        }
+    }
+
+    /**
+     * The 2D grid representation of the shape of this piece. Shared, so must never be modified.
+     */
+    private final int[][] blocks;
+
+    /**
+     * The shape of this piece as a 9 bit mask. Bit (y * 3 + x) is set when blocks[x][y] is not empty.
      */
-    private int[][] blocks;
+    private final int mask;
 
     /**
      * The value of this piece
@@ -29,101 +75,131 @@ public class GamePiece {
     private final String name;
 
     /**
-     * Create a new GamePiece of the specified piece number
+     * How many clockwise rotations this piece is from its starting orientation
+     */
+    private final int rotation;
+
+    /**
+     * Get the GamePiece of the specified piece number, in its starting orientation
      *
      * @param piece piece number
-     * @return the created GamePiece
+     * @return the GamePiece
      */
     public static GamePiece createPiece(int piece) {
+        return createPiece(piece, 0);
+    }
+
+    /**
+     * Get the GamePiece of the specified piece number and rotation
+     *
+     * @param piece    piece number
+     * @param rotation number of times to rotate
+     * @return the GamePiece
+     */
+    public static GamePiece createPiece(int piece, int rotation) {
+        if (piece < 0 || piece >= PIECES) {
+            //Not a valid piece number
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
+        }
+        return TABLE[piece][Math.floorMod(rotation, ROTATIONS)];
+    }
+
+    /**
+     * Build the starting orientation of the specified piece number. Only used to fill the table.
+     *
+     * @param piece piece number
+     * @return the built GamePiece
+     */
+    private static GamePiece buildPiece(int piece) {
         switch (piece) {
             //Line
             case 0 -> {
                 int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Line", blocks, 1);
+                return new GamePiece("Line", blocks, 1, 0);
             }
 
             //C
             case 1 -> {
                 int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
-                return new GamePiece("C", blocks, 2);
+                return new GamePiece("C", blocks, 2, 0);
             }
 
             //Plus
             case 2 -> {
                 int[][] blocks = {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
-                return new GamePiece("Plus", blocks, 3);
+                return new GamePiece("Plus", blocks, 3, 0);
             }
 
             //Dot
             case 3 -> {
                 int[][] blocks = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Dot", blocks, 4);
+                return new GamePiece("Dot", blocks, 4, 0);
             }
 
             //Square
             case 4 -> {
                 int[][] blocks = {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Square", blocks, 5);
+                return new GamePiece("Square", blocks, 5, 0);
             }
 
             //L
             case 5 -> {
                 int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
-                return new GamePiece("L", blocks, 6);
+                return new GamePiece("L", blocks, 6, 0);
             }
 
             //J
             case 6 -> {
                 int[][] blocks = {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("J", blocks, 7);
+                return new GamePiece("J", blocks, 7, 0);
             }
 
             //S
             case 7 -> {
                 int[][] blocks = {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
-                return new GamePiece("S", blocks, 8);
+                return new GamePiece("S", blocks, 8, 0);
             }
 
             //Z
             case 8 -> {
                 int[][] blocks = {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Z", blocks, 9);
+                return new GamePiece("Z", blocks, 9, 0);
             }
 
             //T
             case 9 -> {
                 int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("T", blocks, 10);
+                return new GamePiece("T", blocks, 10, 0);
             }
 
             //X
             case 10 -> {
                 int[][] blocks = {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
-                return new GamePiece("X", blocks, 11);
+                return new GamePiece("X", blocks, 11, 0);
             }
 
             //Corner
             case 11 -> {
                 int[][] blocks = {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("Corner", blocks, 12);
+                return new GamePiece("Corner", blocks, 12, 0);
             }
 
             //Inverse Corner
             case 12 -> {
                 int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Inverse Corner", blocks, 13);
+                return new GamePiece("Inverse Corner", blocks, 13, 0);
             }
 
             //Diagonal
             case 13 -> {
                 int[][] blocks = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
-                return new GamePiece("Diagonal", blocks, 14);
+                return new GamePiece("Diagonal", blocks, 14, 0);
             }
 
             //Double
             case 14 -> {
                 int[][] blocks = {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Double", blocks, 15);
+                return new GamePiece("Double", blocks, 15, 0);
             }
         }
 
@@ -132,39 +208,30 @@ public class GamePiece {
     }
 
     /**
-     * Create a new GamePiece of the specified piece number and rotation
+     * Create a new GamePiece with the given name, block makeup, value and rotation. Should not be called directly, only
+     * when building the table.
      *
-     * @param piece    piece number
-     * @param rotation number of times to rotate
-     * @return the created GamePiece
-     */
-    public static GamePiece createPiece(int piece, int rotation) {
-        var newPiece = createPiece(piece);
-
-        newPiece.rotate(rotation);
-        return newPiece;
-    }
-
-    /**
-     * Create a new GamePiece with the given name, block makeup and value. Should not be called directly, only via the
-     * factory.
-     *
-     * @param name   name of the piece
-     * @param blocks block makeup of the piece
-     * @param value  the value of this piece
+     * @param name     name of the piece
+     * @param blocks   block makeup of the piece
+     * @param value    the value of this piece
+     * @param rotation the rotation of this piece
      */
-    private GamePiece(String name, int[][] blocks, int value) {
+    private GamePiece(String name, int[][] blocks, int value, int rotation) {
         this.name = name;
         this.blocks = blocks;
         this.value = value;
+        this.rotation = rotation;
 
         //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
+        int mask = 0;
         for (int x = 0; x < blocks.length; x++) {
             for (int y = 0; y < blocks[x].length; y++) {
                 if (blocks[x][y] == 0) continue;
                 blocks[x][y] = value;
+                mask |= 1 << (y * 3 + x);
             }
         }
+        this.mask = mask;
     }
 
     /**
@@ -177,7 +244,26 @@ public class GamePiece {
     }
 
     /**
-     * Get the block makeup of this piece
+     * Get the piece number of this piece
+     *
+     * @return piece number
+     */
+    public int getPiece() {
+        return value - 1;
+    }
+
+    /**
+     * Get how many clockwise rotations this piece is from its starting orientation
+     *
+     * @return rotation, 0 to 3
+     */
+    public int getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Get the block makeup of this piece. The array is shared between every user of this piece, so must not be
+     * modified.
      *
      * @return 2D grid of the blocks representing the piece shape
      */
@@ -186,20 +272,50 @@ public class GamePiece {
     }
 
     /**
-     * Rotate this piece the given number of rotations
+     * Get the shape of this piece as a 9 bit mask. Bit (y * 3 + x) is set when getBlocks()[x][y] is not empty.
+     *
+     * @return 3x3 mask of the piece
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Get this piece rotated the given number of clockwise rotations
      *
      * @param rotations number of rotations
+     * @return the rotated piece
      */
-    public void rotate(int rotations) {
-        for (int rotated = 0; rotated < rotations; rotated++) {
-            rotate();
-        }
+    public GamePiece rotate(int rotations) {
+        return TABLE[value - 1][(rotation + rotations) & (ROTATIONS - 1)];
+    }
+
+    /**
+     * Get how many rotations of this piece look different. Rotating this piece by that many gives the same shape back,
+     * so only rotate(0) up to rotate(getDistinctRotations() - 1) need checking.
+     *
+     * @return 1, 2 or 4
+     */
+    public int getDistinctRotations() {
+        return DISTINCT_ROTATIONS[value - 1];
     }
 
     /**
-     * Rotate this piece exactly once by rotating it's 3x3 grid
+     * Get this piece rotated exactly once clockwise
+     *
+     * @return the rotated piece
+     */
+    public GamePiece rotate() {
+        return rotate(1);
+    }
+
+    /**
+     * Rotate a 3x3 block grid exactly once. Only used to fill the table.
+     *
+     * @param blocks the blocks to rotate
+     * @return a new, rotated 3x3 grid
      */
-    public void rotate() {
+    private static int[][] rotated(int[][] blocks) {
         int[][] rotated = new int[blocks.length][blocks[0].length];
         rotated[2][0] = blocks[0][0];
         rotated[1][0] = blocks[0][1];
@@ -213,7 +329,7 @@ public class GamePiece {
         rotated[1][2] = blocks[2][1];
         rotated[0][2] = blocks[2][2];
 
-        blocks = rotated;
+        return rotated;
     }
 
 
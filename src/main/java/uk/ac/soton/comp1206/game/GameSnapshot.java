@@ -0,0 +1,117 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * An immutable copy of the whole state of a Game at one moment, taken by Game.snapshot() and put back by
+ * Game.restore(): the board, the score, level, lives and multiplier, the pieces in hand, where the game is in its
+ * piece sequence and the timer.
+ * <p>
+ * The board is a copy-on-write BoardSnapshot and the pieces are shared flyweights, so a snapshot costs little more
+ * than the rows changed since the game's previous one. A snapshot can only be restored to the game it came from, as
+ * the piece sequence is that game's.
+ */
+public final class GameSnapshot {
+
+    /**
+     * The game it came from
+     */
+    final Game game;
+
+    /**
+     * The board
+     */
+    final BoardSnapshot board;
+
+    /**
+     * the piece the player could directly play
+     */
+    final GamePiece currentPiece;
+
+    /**
+     * the piece the player could swap with
+     */
+    final GamePiece followingPiece;
+
+    /**
+     * how many pieces had been spawned
+     */
+    final int spawned;
+
+    /**
+     * the game score
+     */
+    final int score;
+
+    /**
+     * the game level
+     */
+    final int level;
+
+    /**
+     * the amount of lives left
+     */
+    final int lives;
+
+    /**
+     * the game multiplier
+     */
+    final int multiplier;
+
+    /**
+     * the game clock, in nanoseconds
+     */
+    final long clock;
+
+    /**
+     * when the current piece started waiting to be played, in nanoseconds
+     */
+    final long pieceStart;
+
+    /**
+     * when the current piece runs out of time, in nanoseconds
+     */
+    final long deadline;
+
+    /**
+     * whether the game was over
+     */
+    final boolean gameOver;
+
+    /**
+     * Create a snapshot. Only Game makes them.
+     */
+    GameSnapshot(Game game, BoardSnapshot board, GamePiece currentPiece, GamePiece followingPiece, int spawned,
+                 int score, int level, int lives, int multiplier, long clock, long pieceStart, long deadline,
+                 boolean gameOver) {
+        this.game = game;
+        this.board = board;
+        this.currentPiece = currentPiece;
+        this.followingPiece = followingPiece;
+        this.spawned = spawned;
+        this.score = score;
+        this.level = level;
+        this.lives = lives;
+        this.multiplier = multiplier;
+        this.clock = clock;
+        this.pieceStart = pieceStart;
+        this.deadline = deadline;
+        this.gameOver = gameOver;
+    }
+
+    /**
+     * Get the board
+     *
+     * @return the board when the snapshot was taken
+     */
+    public BoardSnapshot getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the score
+     *
+     * @return the score when the snapshot was taken
+     */
+    public int getScore() {
+        return score;
+    }
+}
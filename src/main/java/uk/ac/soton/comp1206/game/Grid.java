@@ -4,14 +4,36 @@ import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.scene.MenuScene;
+import uk.ac.soton.comp1206.event.GridChangeListener;
+
+import java.util.Arrays;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer values arranged in a 2D
  * arrow, with rows and columns.
  * <p>
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display of the contents of
- * the grid.
+ * Internally the grid is a bitboard: which cells are occupied is packed into one long per row (bit x of row y), and the
+ * colour of each cell is kept in a compact byte plane. Placement, collision and clearing are all done as mask
+ * operations on the row words, so they cost a few word operations per row whatever the size of the board. Grids can
+ * be up to 64 x 64.
+ * <p>
+ * The grid also keeps a count of the filled cells in every row and column, updated as cells are filled and emptied, so
+ * the full lines are always known as a pair of bitmasks without rescanning the board.
+ * <p>
+ * Each value inside the Grid can also be exposed as an IntegerProperty so it can be bound to enable display of the
+ * contents of the grid. The properties are only a view - they are created the first time one is asked for and are only
+ * kept up to date once they exist, so a grid which is never bound to a UI never touches them. A display can instead be
+ * told which cells changed through a GridChangeListener.
+ * <p>
+ * Changes can be grouped with beginUpdate() and commitUpdate(). Inside an update the property view and the listener
+ * are left alone; on commit the view is brought up to date and the listener is told about every changed cell in one
+ * go, so a display can redraw a whole line clear in one pass. Placing a piece and clearing lines are each one update.
+ * <p>
+ * The contents can be saved with snapshot() and put back with restore(), for undoing moves or searching ahead. The grid
+ * remembers which rows have changed since its last snapshot, so a new snapshot only copies those and shares the rest.
+ * <p>
+ * The grid keeps a Zobrist hash of its contents, updated as each cell changes, so searches can recognise a board
+ * they've seen before without comparing it cell by cell.
  * <p>
  * The Grid contains functions related to modifying the model, for example, placing a piece inside the grid.
  * <p>
@@ -19,6 +41,26 @@ import uk.ac.soton.comp1206.scene.MenuScene;
  */
 public class Grid {
 
+    /**
+     * The bits of a 3x3 piece mask in its left column
+     */
+    private static final int PIECE_LEFT = 0b001001001;
+
+    /**
+     * The bits of a 3x3 piece mask in its right column
+     */
+    private static final int PIECE_RIGHT = 0b100100100;
+
+    /**
+     * The bits of a 3x3 piece mask in its top row
+     */
+    private static final int PIECE_TOP = 0b000000111;
+
+    /**
+     * The bits of a 3x3 piece mask in its bottom row
+     */
+    private static final int PIECE_BOTTOM = 0b111000000;
+
     /**
      * The number of columns in this grid
      */
@@ -30,9 +72,85 @@ public class Grid {
     private final int rows;
 
     /**
-     * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+     * The largest number of rows or columns a grid can have, as each row is one long
+     */
+    public static final int MAX_SIZE = Long.SIZE;
+
+    /**
+     * A mask with the bit of every column in a row set
+     */
+    private final long rowMask;
+
+    /**
+     * Which cells hold a block. Bit x of occupancy[y] is set when the cell at x, y is not empty.
+     */
+    private final long[] occupancy;
+
+    /**
+     * Scratch space for legalPlacements: the free cells of each row, shifted for a block landing left of, on, and right
+     * of the centre. freeShifted[y * 3 + i] has bit x set when cell x + i - 1 of row y is free.
+     */
+    private final long[] freeShifted;
+
+    /**
+     * The value (colour) of every cell, indexed by y * cols + x. 0 is empty.
+     */
+    private final byte[] colours;
+
+    /**
+     * The number of filled cells in each row
+     */
+    private final int[] rowFill;
+
+    /**
+     * The number of filled cells in each column
+     */
+    private final int[] columnFill;
+
+    /**
+     * The rows which are completely full. Bit y is set when row y is full.
+     */
+    private long fullRows;
+
+    /**
+     * The columns which are completely full. Bit x is set when column x is full.
+     */
+    private long fullColumns;
+
+    /**
+     * The Zobrist hash of the colour of every cell
+     */
+    private long hash = 0;
+
+    /**
+     * The optional JavaFX view of the grid. Null until something asks for a property to bind to.
+     */
+    private SimpleIntegerProperty[][] view;
+
+    /**
+     * the listener which is told about every cell that changes
+     */
+    private GridChangeListener gridChangeListener;
+
+    /**
+     * The cells changed in the current update. Bit x of changedRows[y] is set when the cell at x, y has changed.
+     */
+    private final long[] changedRows;
+
+    /**
+     * How many updates have begun and not been committed. Changes are published when it drops back to 0.
      */
-    private final SimpleIntegerProperty[][] grid;
+    private int updateDepth = 0;
+
+    /**
+     * The last snapshot taken or restored, or null if there hasn't been one
+     */
+    private BoardSnapshot lastSnapshot;
+
+    /**
+     * The rows changed since lastSnapshot. Bit y is set when row y has changed.
+     */
+    private long changedSinceSnapshot = 0;
 
     private static final Logger logger = LogManager.getLogger(Grid.class);
 
@@ -43,29 +161,43 @@ public class Grid {
      * @param rows number of rows
      */
     public Grid(int cols, int rows) {
+        if (cols <= 0 || rows <= 0 || cols > MAX_SIZE || rows > MAX_SIZE) {
+            throw new IllegalArgumentException("Grid of " + cols + " x " + rows + " does not fit in a bitboard");
+        }
         this.cols = cols;
         this.rows = rows;
 
         //Create the grid itself
-        grid = new SimpleIntegerProperty[cols][rows];
+        occupancy = new long[rows];
+        freeShifted = new long[rows * 3];
+        colours = new byte[cols * rows];
+        rowFill = new int[rows];
+        columnFill = new int[cols];
+        changedRows = new long[rows];
 
-        //Add a SimpleIntegerProperty to every block in the grid
-        for (var y = 0; y < rows; y++) {
-            for (var x = 0; x < cols; x++) {
-                grid[x][y] = new SimpleIntegerProperty(0);
-            }
-        }
+        //Work out the mask of the cells in a row
+        rowMask = cols == Long.SIZE ? -1L : (1L << cols) - 1;
     }
 
     /**
      * Get the Integer property contained inside the grid at a given row and column index. Can be used for binding.
+     * The first call creates the property view of the whole grid.
      *
      * @param x column
      * @param y row
      * @return the IntegerProperty at the given x and y in this grid
      */
     public IntegerProperty getGridProperty(int x, int y) {
-        return grid[x][y];
+        if (view == null) {
+            //Add a SimpleIntegerProperty to every block in the grid, starting from the current state
+            view = new SimpleIntegerProperty[cols][rows];
+            for (var j = 0; j < rows; j++) {
+                for (var i = 0; i < cols; i++) {
+                    view[i][j] = new SimpleIntegerProperty(colours[j * cols + i]);
+                }
+            }
+        }
+        return view[x][y];
     }
 
     /**
@@ -76,7 +208,71 @@ public class Grid {
      * @param value the new value
      */
     public void set(int x, int y, int value) {
-        grid[x][y].set(value);
+        beginUpdate();
+        int index = y * cols + x;
+        boolean wasFilled = colours[index] != 0;
+        if (value == 0) {
+            occupancy[y] &= ~(1L << x);
+            if (wasFilled) count(x, y, -1);
+        } else {
+            occupancy[y] |= 1L << x;
+            if (!wasFilled) count(x, y, 1);
+        }
+        hash ^= Zobrist.cell(x, y, colours[index]) ^ Zobrist.cell(x, y, value);
+        colours[index] = (byte) value;
+        changedRows[y] |= 1L << x;
+        changedSinceSnapshot |= 1L << y;
+        commitUpdate();
+    }
+
+    /**
+     * Start grouping changes to the grid. Until the matching commitUpdate, changes aren't passed on to the property
+     * view or the listener. Updates can be nested; only the outermost commit publishes.
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    /**
+     * Finish a group of changes started by beginUpdate. If this ends the outermost update, the property view is
+     * brought up to date and the listener is told about every cell which changed, all at once.
+     */
+    public void commitUpdate() {
+        if (updateDepth == 0) {
+            throw new IllegalStateException("commitUpdate without beginUpdate");
+        }
+        if (--updateDepth > 0) {
+            return;
+        }
+
+        boolean changed = false;
+        for (int y = 0; y < rows; y++) {
+            long row = changedRows[y];
+            changed |= row != 0;
+            if (view != null) {
+                while (row != 0) {
+                    int x = Long.numberOfTrailingZeros(row);
+                    row &= row - 1;
+                    view[x][y].set(colours[y * cols + x]);
+                }
+            }
+        }
+
+        if (changed && gridChangeListener != null) {
+            gridChangeListener.gridChanged(this, changedRows);
+        }
+        for (int y = 0; y < rows; y++) {
+            changedRows[y] = 0;
+        }
+    }
+
+    /**
+     * set the grid change listener
+     *
+     * @param gridChangeListener the function to set
+     */
+    public void setGridChangeListener(GridChangeListener gridChangeListener) {
+        this.gridChangeListener = gridChangeListener;
     }
 
     /**
@@ -84,17 +280,73 @@ public class Grid {
      *
      * @param x column
      * @param y row
-     * @return the value
+     * @return the value, or -1 if there is no such index
      */
     //remember value should be colour
     public int get(int x, int y) {
-        try {
-            //Get the value held in the property at the x and y index provided
-            return grid[x][y].get();
-        } catch (ArrayIndexOutOfBoundsException e) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) {
             //No such index
             return -1;
         }
+        return colours[y * cols + x];
+    }
+
+    /**
+     * Get the occupancy of one row of this grid. Bit x is set when the cell at x, y is not empty.
+     *
+     * @param y the row
+     * @return occupancy mask of the row
+     */
+    public long getRowOccupancy(int y) {
+        return occupancy[y];
+    }
+
+    /**
+     * Get the rows which are completely full
+     *
+     * @return mask of the full rows, bit y is set when row y is full
+     */
+    public long getFullRows() {
+        return fullRows;
+    }
+
+    /**
+     * Get the columns which are completely full
+     *
+     * @return mask of the full columns, bit x is set when column x is full
+     */
+    public long getFullColumns() {
+        return fullColumns;
+    }
+
+    /**
+     * Get the Zobrist hash of the board. Two grids with the same colour in every cell have the same hash, and one
+     * change almost always changes it.
+     *
+     * @return the hash, 0 for an empty grid
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Get how many cells of a row are filled
+     *
+     * @param y the row
+     * @return number of filled cells
+     */
+    public int getRowFill(int y) {
+        return rowFill[y];
+    }
+
+    /**
+     * Get how many cells of a column are filled
+     *
+     * @param x the column
+     * @return number of filled cells
+     */
+    public int getColumnFill(int x) {
+        return columnFill[x];
     }
 
     /**
@@ -115,6 +367,36 @@ public class Grid {
         return rows;
     }
 
+    /**
+     * Check a piece mask centred on x, y does not hang off the edge of the grid
+     *
+     * @param mask 3x3 mask of the piece
+     * @param x    the x position of the centre
+     * @param y    the y position of the centre
+     * @return true if every block of the piece lands inside the grid
+     */
+    private boolean inBounds(int mask, int x, int y) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) return false;
+        if (x == 0 && (mask & PIECE_LEFT) != 0) return false;
+        if (x == cols - 1 && (mask & PIECE_RIGHT) != 0) return false;
+        if (y == 0 && (mask & PIECE_TOP) != 0) return false;
+        return y != rows - 1 || (mask & PIECE_BOTTOM) == 0;
+    }
+
+    /**
+     * Move one row of a piece mask onto a grid row, centred on column x. The piece must already be known to be in
+     * bounds.
+     *
+     * @param mask 3x3 mask of the piece
+     * @param j    the row of the piece, 0 to 2
+     * @param x    the x position of the centre
+     * @return the cells of the grid row the piece would cover
+     */
+    private static long pieceRow(int mask, int j, int x) {
+        //the three bits of this row of the piece, moved so bit 0 is column x - 1
+        long row = (mask >>> (j * 3)) & 0b111;
+        return x == 0 ? row >>> 1 : row << (x - 1);
+    }
 
     /**
      * @param piece the piece to be checked
@@ -122,65 +404,301 @@ public class Grid {
      * @param y     the y positin of the click
      * @return true if can be played, otherwise false
      */
-    private Boolean canPlayPiece(GamePiece piece, int x, int y) {
-        int[][] blocks = piece.getBlocks();
+    public boolean canPlayPiece(GamePiece piece, int x, int y) {
+        int mask = piece.getMask();
+        return inBounds(mask, x, y) && fits(mask, x, y);
+    }
 
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                if (!checkIfBlockCanBePlayed(x + i - 1, y + j - 1, blocks[i][j])) return false;
+    /**
+     * Check every block of an in bounds piece mask lands on an empty cell
+     *
+     * @param mask 3x3 mask of the piece
+     * @param x    the x position of the centre
+     * @param y    the y position of the centre
+     * @return true if nothing is in the way
+     */
+    private boolean fits(int mask, int x, int y) {
+        for (int j = 0; j < 3; j++) {
+            long row = pieceRow(mask, j, x);
+            if (row != 0 && (occupancy[y + j - 1] & row) != 0) {
+                return false;
             }
         }
-        logger.info("Concluded piece can be played");
         return true;
     }
 
-
     /**
-     * @param gridX      X value of the grid
-     * @param gridY      Y value of the grid
-     * @param valAtBlock Value of the block being checked
-     * @return true if can be played, false if cannot be played
+     * @param piece the piece to be played
+     * @param x     the x position of the click
+     * @param y     the y position of the click
+     * @return true if the piece was placed, false if it could not be played there
      */
-    private Boolean checkIfBlockCanBePlayed(int gridX, int gridY, int valAtBlock) {
-        if (valAtBlock == 0) { //if there is no block to be played
-            return true;
-        }
-
-        if (gridX < 0 || gridY < 0 || gridX > 4 || gridY > 4) { //if the piece is going to be played out of bounds
+    public boolean playPiece(GamePiece piece, int x, int y) {
+        int mask = piece.getMask();
+        if (!inBounds(mask, x, y)) { //if the piece is going to be played out of bounds
             return false;
         }
-
-        if (get(gridX, gridY) > 0) { //if there is already a piece at the position
+        if (!fits(mask, x, y)) { //if there is already a piece at the position
             return false;
         }
 
+        placePiece(piece, x, y);
         return true;
-
     }
 
     /**
+     * Place a piece which is already known to fit, without checking again
+     *
      * @param piece the piece to be played
-     * @param x     the x position of the click
-     * @param y     the y position of the click
+     * @param x     the x position of the centre
+     * @param y     the y position of the centre
      */
-    public Boolean playPiece(GamePiece piece, int x, int y) {
-        if (!canPlayPiece(piece, x, y)) { //check if piece can be played
-            return false;
+    void placePiece(GamePiece piece, int x, int y) {
+        int mask = piece.getMask();
+        beginUpdate();
+        for (int j = 0; j < 3; j++) {
+            long row = pieceRow(mask, j, x);
+            if (row != 0) {
+                occupancy[y + j - 1] |= row;
+                fill(y + j - 1, row, piece.getValue(), 1);
+            }
         }
+        commitUpdate();
+
+        logger.trace("Piece has been placed");
+    }
 
-        int[][] blocks = piece.getBlocks();
+    /**
+     * Find every place the piece can legally be played, in every rotation, without changing the grid
+     *
+     * @param piece the piece to check
+     * @return the legal placements, with rotations counted from the given piece
+     */
+    public Placements legalPlacements(GamePiece piece) {
+        return legalPlacements(piece, new Placements(cols, rows));
+    }
+
+    /**
+     * Find every place the piece can legally be played, in every rotation, without changing the grid
+     *
+     * @param piece      the piece to check
+     * @param placements the set to fill in, made for a grid the same size as this one. Anything already in it is
+     *                   replaced.
+     * @return the given placements, with rotations counted from the given piece
+     */
+    public Placements legalPlacements(GamePiece piece, Placements placements) {
+        if (placements.cols != cols || placements.rows != rows) {
+            throw new IllegalArgumentException("Placements for a " + placements.cols + " x " + placements.rows
+                    + " grid can't be used on a " + cols + " x " + rows + " grid");
+        }
+        shiftFreeCells();
+        int distinct = piece.getDistinctRotations();
+        for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            int mask = piece.rotate(rotation).getMask();
+            for (int y = 0; y < rows; y++) {
+                //a rotation which looks the same as an earlier one fits in the same places
+                placements.set(rotation, y, rotation < distinct
+                        ? legalCentres(mask, y) : placements.getMask(rotation % distinct, y));
+            }
+        }
+        return placements;
+    }
 
-        //place piece
-        for (int i = -1; i < 2; i++) {
-            for (int j = -1; j < 2; j++) {
-                if (blocks[i + 1][j + 1] > 0) {
-                    set(x + i, y + j, blocks[i + 1][j + 1]);
+    /**
+     * Check whether a piece can be played anywhere at all, in any rotation. Stops at the first legal placement it
+     * finds, and only tries the rotations which look different, so it's cheap enough to run after every move.
+     *
+     * @param piece the piece to check
+     * @return true if there is at least one legal placement
+     */
+    public boolean hasLegalPlacement(GamePiece piece) {
+        shiftFreeCells();
+        int distinct = piece.getDistinctRotations();
+        for (int rotation = 0; rotation < distinct; rotation++) {
+            int mask = piece.rotate(rotation).getMask();
+            for (int y = 0; y < rows; y++) {
+                if (legalCentres(mask, y) != 0) {
+                    return true;
                 }
             }
         }
+        return false;
+    }
 
-        logger.info("Piece has been placed");
-        return true;
+    /**
+     * Work out, for every row, where a block landing left of, on, or right of a centre would be free. Fills in
+     * freeShifted for legalCentres.
+     */
+    private void shiftFreeCells() {
+        for (int y = 0; y < rows; y++) {
+            long free = ~occupancy[y] & rowMask;
+            freeShifted[y * 3] = (free << 1) & rowMask;
+            freeShifted[y * 3 + 1] = free;
+            freeShifted[y * 3 + 2] = free >>> 1;
+        }
+    }
+
+    /**
+     * Work out every centre in one row a piece mask can be played at in one go. For each block of the piece, the free
+     * cells of the row it lands in are shifted back by that block's offset from the centre (see freeShifted), so a
+     * centre survives the AND only if every block of the piece would land on a free cell. Blocks landing above or below
+     * the grid rule out the whole row.
+     *
+     * @param mask 3x3 mask of the piece
+     * @param y    the row of the centre
+     * @return mask of the legal centres in the row, bit x
+     */
+    private long legalCentres(int mask, int y) {
+        long centres = rowMask;
+        while (mask != 0 && centres != 0) {
+            int bit = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+
+            //bit / 3 is the row of the piece and bit % 3 its column, so this is the landing row's free cells shifted
+            //for that column
+            int landing = (y - 1) * 3 + bit;
+            if (landing < 0 || landing >= freeShifted.length) {
+                return 0;
+            }
+            centres &= freeShifted[landing];
+        }
+        return centres;
+    }
+
+    /**
+     * Save the contents of the grid. Rows which haven't changed since the last snapshot are shared with it, and if
+     * nothing has changed at all the last snapshot itself is returned.
+     *
+     * @return the snapshot
+     */
+    public BoardSnapshot snapshot() {
+        if (lastSnapshot != null && changedSinceSnapshot == 0) {
+            return lastSnapshot;
+        }
+        byte[][] colourRows = new byte[rows][];
+        for (int y = 0; y < rows; y++) {
+            if (lastSnapshot != null && (changedSinceSnapshot & (1L << y)) == 0) {
+                colourRows[y] = lastSnapshot.colourRows[y];
+            } else {
+                colourRows[y] = Arrays.copyOfRange(colours, y * cols, (y + 1) * cols);
+            }
+        }
+        lastSnapshot = new BoardSnapshot(cols, rows, occupancy.clone(), colourRows);
+        changedSinceSnapshot = 0;
+        return lastSnapshot;
+    }
+
+    /**
+     * Put back the contents of a snapshot, as one update. Only the cells which differ are changed, so the listener
+     * and the view only hear about those.
+     *
+     * @param snapshot a snapshot of a grid the same size as this one
+     */
+    public void restore(BoardSnapshot snapshot) {
+        if (snapshot.cols != cols || snapshot.rows != rows) {
+            throw new IllegalArgumentException("Snapshot of a " + snapshot.cols + " x " + snapshot.rows
+                    + " grid can't be restored to a " + cols + " x " + rows + " grid");
+        }
+        beginUpdate();
+        for (int y = 0; y < rows; y++) {
+            //a row the grid hasn't touched since it last matched a snapshot sharing the same row is already right
+            if (lastSnapshot != null && (changedSinceSnapshot & (1L << y)) == 0
+                    && snapshot.colourRows[y] == lastSnapshot.colourRows[y]) {
+                continue;
+            }
+            byte[] row = snapshot.colourRows[y];
+            for (int x = 0; x < cols; x++) {
+                if (colours[y * cols + x] != row[x]) {
+                    set(x, y, row[x]);
+                }
+            }
+        }
+        commitUpdate();
+        lastSnapshot = snapshot;
+        changedSinceSnapshot = 0;
+    }
+
+    /**
+     * Empty every cell in a row
+     *
+     * @param y the row to clear
+     */
+    public void clearRow(int y) {
+        clearLines(1L << y, 0);
+    }
+
+    /**
+     * Empty every cell in a column
+     *
+     * @param x the column to clear
+     */
+    public void clearColumn(int x) {
+        clearLines(0, 1L << x);
+    }
+
+    /**
+     * Empty every cell in a set of rows and columns at once
+     *
+     * @param rowsToClear    mask of the rows to clear, bit y for row y
+     * @param columnsToClear mask of the columns to clear, bit x for column x
+     */
+    public void clearLines(long rowsToClear, long columnsToClear) {
+        beginUpdate();
+        for (int y = 0; y < rows; y++) {
+            long cells = (rowsToClear & (1L << y)) != 0 ? rowMask : columnsToClear & rowMask;
+            //only the cells which actually hold something need their colour, counts (and view) resetting
+            long filled = occupancy[y] & cells;
+            if (filled != 0) {
+                occupancy[y] &= ~filled;
+                fill(y, filled, 0, -1);
+            }
+        }
+        commitUpdate();
+    }
+
+    /**
+     * Write a value into the colour plane for every cell of a row in the mask, note them as changed, and adjust the
+     * row and column counts. Does not touch the occupancy. Must be called inside an update.
+     *
+     * @param y     the row
+     * @param cells mask of the cells of the row to write
+     * @param value the value to write
+     * @param delta 1 if the cells are being filled, -1 if they are being emptied
+     */
+    private void fill(int y, long cells, int value, int delta) {
+        changedRows[y] |= cells;
+        changedSinceSnapshot |= 1L << y;
+        while (cells != 0) {
+            int x = Long.numberOfTrailingZeros(cells);
+            cells &= cells - 1;
+            hash ^= Zobrist.cell(x, y, colours[y * cols + x]) ^ Zobrist.cell(x, y, value);
+            colours[y * cols + x] = (byte) value;
+            count(x, y, delta);
+        }
+    }
+
+    /**
+     * Adjust the filled count of a cell's row and column, and track whether they are now full
+     *
+     * @param x     column of the cell
+     * @param y     row of the cell
+     * @param delta 1 if the cell was filled, -1 if it was emptied
+     */
+    private void count(int x, int y, int delta) {
+        rowFill[y] += delta;
+        columnFill[x] += delta;
+
+        if (rowFill[y] == cols) {
+            fullRows |= 1L << y;
+        } else {
+            fullRows &= ~(1L << y);
+        }
+
+        if (columnFill[x] == rows) {
+            fullColumns |= 1L << x;
+        } else {
+            fullColumns &= ~(1L << x);
+        }
     }
 
 }
@@ -0,0 +1,19 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * What the game does when neither the current nor the following piece fits anywhere on the board, in any rotation.
+ */
+public enum NoMovesPenalty {
+    /**
+     * nothing: the player waits for the timer to run out, as if they were thinking
+     */
+    NONE,
+    /**
+     * lose a life straight away and get a new current piece, as if the timer had run out
+     */
+    LOSE_LIFE,
+    /**
+     * the game is over straight away
+     */
+    GAME_OVER
+}
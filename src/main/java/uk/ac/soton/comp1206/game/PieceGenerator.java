@@ -0,0 +1,68 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * Decides which pieces a game gets, and in what order. Every generator is seeded, so the same seed always produces the
+ * same sequence, and can be split into an independent generator (e.g. for another player or another simulated game).
+ * <p>
+ * Generators keep a lookahead buffer, so upcoming pieces can be peeked at without changing what next() returns.
+ */
+public interface PieceGenerator {
+
+    /**
+     * How many pieces a generator can look ahead by default
+     */
+    public static final int DEFAULT_LOOKAHEAD = 8;
+
+    /**
+     * Take the next piece from the sequence
+     *
+     * @return the next piece
+     */
+    public GamePiece next();
+
+    /**
+     * Look at an upcoming piece without taking it
+     *
+     * @param ahead how far ahead to look, 0 is the piece next() will return
+     * @return the upcoming piece
+     */
+    public GamePiece peek(int ahead);
+
+    /**
+     * Create a new, independent generator of the same kind, seeded from this one
+     *
+     * @return the new generator
+     */
+    public PieceGenerator split();
+
+    /**
+     * Create a generator where every piece is equally likely every time
+     *
+     * @param seed the seed
+     * @return the generator
+     */
+    public static PieceGenerator uniform(long seed) {
+        return new UniformPieceGenerator(seed, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * Create a generator which deals every piece once, in a shuffled order, before dealing any piece again
+     *
+     * @param seed the seed
+     * @return the generator
+     */
+    public static PieceGenerator bag(long seed) {
+        return new BagPieceGenerator(seed, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * Create a generator where each piece comes up in proportion to its weight
+     *
+     * @param seed    the seed
+     * @param weights one weight for each piece number, none negative and at least one positive
+     * @return the generator
+     */
+    public static PieceGenerator weighted(long seed, int[] weights) {
+        return new WeightedPieceGenerator(seed, DEFAULT_LOOKAHEAD, weights);
+    }
+}
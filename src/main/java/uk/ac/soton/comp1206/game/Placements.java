@@ -0,0 +1,172 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A compact set of the places a piece can legally be played on a Grid. Each placement is a centre x, y and a number
+ * of clockwise rotations (0 to 3) of the piece that was asked about.
+ * <p>
+ * The set is stored like the grid itself, as one bitmask per row (bit x) for each rotation, so it holds no objects.
+ * Placements are walked with first() / next(), which hand back an int index that getX, getY and getRotation decode.
+ * <p>
+ * A Placements can be reused by passing it back into Grid.legalPlacements for a grid of the same size, which
+ * overwrites every row.
+ */
+public class Placements {
+
+    /**
+     * The number of columns of the grid these placements are for
+     */
+    final int cols;
+
+    /**
+     * The number of rows of the grid these placements are for
+     */
+    final int rows;
+
+    /**
+     * The number of cells in the grid these placements are for
+     */
+    private final int cells;
+
+    /**
+     * The legal centres for each rotation and row. Bit x of masks[rotation * rows + y] is set when the piece rotated
+     * that many times can be played centred on x, y.
+     */
+    private final long[] masks;
+
+    /**
+     * Create an empty set of placements for a grid of the given size
+     *
+     * @param cols number of columns of the grid
+     * @param rows number of rows of the grid
+     */
+    public Placements(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cells = cols * rows;
+        this.masks = new long[GamePiece.ROTATIONS * rows];
+    }
+
+    /**
+     * Set the legal centres in one row for one rotation
+     *
+     * @param rotation the rotation
+     * @param y        the row
+     * @param centres  mask of the legal centres in the row, bit x
+     */
+    void set(int rotation, int y, long centres) {
+        masks[rotation * rows + y] = centres;
+    }
+
+    /**
+     * Get the legal centres in one row for one rotation
+     *
+     * @param rotation the rotation
+     * @param y        the row
+     * @return mask of the legal centres in the row, bit x
+     */
+    public long getMask(int rotation, int y) {
+        return masks[rotation * rows + y];
+    }
+
+    /**
+     * Check whether a placement is in this set
+     *
+     * @param x        column of the centre
+     * @param y        row of the centre
+     * @param rotation number of clockwise rotations
+     * @return true if the piece can be played there
+     */
+    public boolean contains(int x, int y, int rotation) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) {
+            return false;
+        }
+        return (masks[(rotation & (GamePiece.ROTATIONS - 1)) * rows + y] & (1L << x)) != 0;
+    }
+
+    /**
+     * Get how many placements are in this set
+     *
+     * @return number of legal placements
+     */
+    public int size() {
+        int size = 0;
+        for (long mask : masks) {
+            size += Long.bitCount(mask);
+        }
+        return size;
+    }
+
+    /**
+     * Check whether the piece can be played anywhere at all
+     *
+     * @return true if there are no legal placements
+     */
+    public boolean isEmpty() {
+        for (long mask : masks) {
+            if (mask != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the first placement in this set
+     *
+     * @return the index of the first placement, or -1 if there are none
+     */
+    public int first() {
+        return next(-1);
+    }
+
+    /**
+     * Get the placement after the given one
+     *
+     * @param index the index of the previous placement, or -1 to start from the beginning
+     * @return the index of the next placement, or -1 if there are no more
+     */
+    public int next(int index) {
+        int from = index + 1;
+        //masks are in the same order as the indexes: rotation, then row, then column
+        for (int i = from / cols; i < masks.length; i++) {
+            long mask = masks[i];
+            //skip the placements of this row we've already been past
+            int skip = from - i * cols;
+            if (skip > 0) {
+                mask &= -1L << skip;
+            }
+            if (mask != 0) {
+                return i * cols + Long.numberOfTrailingZeros(mask);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the centre column of a placement
+     *
+     * @param index the placement index
+     * @return column
+     */
+    public int getX(int index) {
+        return (index % cells) % cols;
+    }
+
+    /**
+     * Get the centre row of a placement
+     *
+     * @param index the placement index
+     * @return row
+     */
+    public int getY(int index) {
+        return (index % cells) / cols;
+    }
+
+    /**
+     * Get the rotation of a placement
+     *
+     * @param index the placement index
+     * @return number of clockwise rotations, 0 to 3
+     */
+    public int getRotation(int index) {
+        return index / cells;
+    }
+}
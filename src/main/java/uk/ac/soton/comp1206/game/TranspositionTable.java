@@ -0,0 +1,246 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size cache of positions a search has already evaluated, keyed by their Zobrist hash (see Game.getHash()).
+ * A search looks a position up before evaluating it, and stores the result afterwards, so a position reached by more
+ * than one order of moves is only evaluated once.
+ * <p>
+ * Each entry is packed into a single long: the score, the depth it was searched to, the best move (a Placements
+ * index), what kind of bound the score is and which search stored it. See score(), depth(), move() and bound() to
+ * unpack one.
+ * <p>
+ * The table never grows and never locks. Entries live in buckets of two: the first keeps the deepest result, replaced
+ * only by one at least as deep or when it is left over from an older search, and the second always takes whatever the
+ * first turned down. Threads may read and write at the same time. Each entry is stored as its data and its hash XOR
+ * its data, so an entry torn by two threads writing at once no longer matches its hash and reads as a miss rather
+ * than as the wrong result.
+ */
+public class TranspositionTable {
+
+    /**
+     * What a stored score says about the true score of the position
+     */
+    public enum Bound {
+        /**
+         * the score is exact
+         */
+        EXACT,
+        /**
+         * the true score is at least the stored score
+         */
+        LOWER,
+        /**
+         * the true score is at most the stored score
+         */
+        UPPER
+    }
+
+    /**
+     * What probe returns when the position isn't in the table. No real entry is 0, as the bound is stored plus 1.
+     */
+    public static final long MISS = 0;
+
+    /**
+     * The move stored when there isn't a best move
+     */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * Where each field sits in a packed entry. The score takes the low 32 bits.
+     */
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int GENERATION_SHIFT = 58;
+
+    /**
+     * The largest move that fits in an entry. Placements indexes on a 64 x 64 board go up to 4 * 64 * 64 - 1.
+     */
+    private static final int MAX_MOVE = 0xFFFE;
+
+    /**
+     * The largest depth that fits in an entry
+     */
+    private static final int MAX_DEPTH = 0xFF;
+
+    /**
+     * The most entries a table can hold, a gigabyte's worth
+     */
+    public static final int MAX_ENTRIES = 1 << 26;
+
+    /**
+     * Every Bound, by ordinal
+     */
+    private static final Bound[] BOUNDS = Bound.values();
+
+    /**
+     * How many searches the generation counts before wrapping around
+     */
+    private static final int GENERATIONS = 64;
+
+    /**
+     * Two longs per entry, check then data, two entries per bucket
+     */
+    private final AtomicLongArray slots;
+
+    /**
+     * Mask of the bucket bits of a hash
+     */
+    private final int bucketMask;
+
+    /**
+     * Which search is storing entries now
+     */
+    private volatile int generation = 0;
+
+    /**
+     * Create an empty table
+     *
+     * @param entries how many entries it holds, rounded up to a power of two. Each takes 16 bytes.
+     */
+    public TranspositionTable(int entries) {
+        if (entries < 2 || entries > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Transposition table must hold between 2 and " + MAX_ENTRIES
+                    + " entries: " + entries);
+        }
+        int buckets = Integer.highestOneBit(entries - 1);
+        this.slots = new AtomicLongArray(buckets * 4);
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Get how many entries the table holds
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return slots.length() / 2;
+    }
+
+    /**
+     * Start a new search. Entries left over from earlier searches are replaced first.
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    /**
+     * Empty the table. Not safe to call while other threads are using it.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.setOpaque(i, 0);
+        }
+    }
+
+    /**
+     * Look a position up
+     *
+     * @param hash the position's hash
+     * @return the packed entry, or MISS if it isn't in the table
+     */
+    public long probe(long hash) {
+        int bucket = bucketOf(hash);
+        for (int i = bucket; i < bucket + 4; i += 2) {
+            long data = slots.getOpaque(i + 1);
+            if (data != MISS && (slots.getOpaque(i) ^ data) == hash) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Store the result of searching a position
+     *
+     * @param hash  the position's hash
+     * @param score the score found
+     * @param depth how deep the position was searched, 0 to 255
+     * @param move  the best move found, a Placements index, or NO_MOVE
+     * @param bound what kind of bound the score is
+     */
+    public void store(long hash, int score, int depth, int move, Bound bound) {
+        if (move < NO_MOVE || move > MAX_MOVE) {
+            throw new IllegalArgumentException("Move doesn't fit in a transposition table entry: " + move);
+        }
+        long data = (score & 0xFFFFFFFFL)
+                | (long) ((move + 1) & 0xFFFF) << MOVE_SHIFT
+                | (long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT
+                | (long) (bound.ordinal() + 1) << BOUND_SHIFT
+                | (long) generation << GENERATION_SHIFT;
+
+        int bucket = bucketOf(hash);
+        int slot = bucket;
+        long deepest = slots.getOpaque(bucket + 1);
+        boolean sameAsDeepest = deepest != MISS && (slots.getOpaque(bucket) ^ deepest) == hash;
+        if (!sameAsDeepest && deepest != MISS && generation(deepest) == generation && depth < depth(deepest)) {
+            //the deepest slot is worth keeping, so this goes in the other one
+            slot = bucket + 2;
+        }
+        slots.setOpaque(slot, hash ^ data);
+        slots.setOpaque(slot + 1, data);
+    }
+
+    /**
+     * Work out where a hash's bucket starts
+     *
+     * @param hash the hash
+     * @return the index of the bucket's first slot
+     */
+    private int bucketOf(long hash) {
+        //the keys are well mixed, so any bits will do. The high ones are used as the low ones end up in the check.
+        return ((int) (hash >>> 32) & bucketMask) * 4;
+    }
+
+    /**
+     * Unpack the score of an entry
+     *
+     * @param entry an entry returned by probe
+     * @return the score
+     */
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Unpack the best move of an entry
+     *
+     * @param entry an entry returned by probe
+     * @return the move, a Placements index, or NO_MOVE
+     */
+    public static int move(long entry) {
+        return (int) (entry >>> MOVE_SHIFT & 0xFFFF) - 1;
+    }
+
+    /**
+     * Unpack how deep the position of an entry was searched
+     *
+     * @param entry an entry returned by probe
+     * @return the depth
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT & MAX_DEPTH);
+    }
+
+    /**
+     * Unpack what kind of bound the score of an entry is
+     *
+     * @param entry an entry returned by probe
+     * @return the bound
+     */
+    public static Bound bound(long entry) {
+        return BOUNDS[(int) (entry >>> BOUND_SHIFT & 3) - 1];
+    }
+
+    /**
+     * Unpack which search stored an entry
+     *
+     * @param entry a stored entry
+     * @return the generation
+     */
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT);
+    }
+}
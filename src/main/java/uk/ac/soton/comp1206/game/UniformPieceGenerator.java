@@ -0,0 +1,39 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks every piece independently, with every piece equally likely. This is how pieces have always been chosen.
+ */
+public class UniformPieceGenerator extends BufferedPieceGenerator {
+
+    /**
+     * Create a uniform generator
+     *
+     * @param seed      the seed
+     * @param lookahead how many pieces can be peeked at
+     */
+    public UniformPieceGenerator(long seed, int lookahead) {
+        this(new SplittableRandom(seed), lookahead);
+    }
+
+    /**
+     * Create a uniform generator from an existing random number generator
+     *
+     * @param random    the random number generator
+     * @param lookahead how many pieces can be peeked at
+     */
+    private UniformPieceGenerator(SplittableRandom random, int lookahead) {
+        super(random, lookahead);
+    }
+
+    @Override
+    protected int generate() {
+        return random.nextInt(GamePiece.PIECES);
+    }
+
+    @Override
+    public PieceGenerator split() {
+        return new UniformPieceGenerator(random.split(), getLookahead());
+    }
+}
@@ -0,0 +1,78 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks every piece independently, with each piece coming up in proportion to its weight. Useful for making a mode
+ * easier or harder by changing how often the awkward pieces appear.
+ */
+public class WeightedPieceGenerator extends BufferedPieceGenerator {
+
+    /**
+     * Running total of the weights. cumulative[i] is the sum of the weights of pieces 0 to i.
+     */
+    private final int[] cumulative;
+
+    /**
+     * Create a weighted generator
+     *
+     * @param seed      the seed
+     * @param lookahead how many pieces can be peeked at
+     * @param weights   one weight for each piece number, none negative and at least one positive
+     */
+    public WeightedPieceGenerator(long seed, int lookahead, int[] weights) {
+        this(new SplittableRandom(seed), lookahead, cumulate(weights));
+    }
+
+    /**
+     * Create a weighted generator from an existing random number generator and running total
+     *
+     * @param random     the random number generator
+     * @param lookahead  how many pieces can be peeked at
+     * @param cumulative running total of the weights
+     */
+    private WeightedPieceGenerator(SplittableRandom random, int lookahead, int[] cumulative) {
+        super(random, lookahead);
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Check the weights and turn them into a running total
+     *
+     * @param weights one weight for each piece number
+     * @return running total of the weights
+     */
+    private static int[] cumulate(int[] weights) {
+        if (weights.length != GamePiece.PIECES) {
+            throw new IllegalArgumentException("Need " + GamePiece.PIECES + " weights, got " + weights.length);
+        }
+        int[] cumulative = new int[weights.length];
+        int total = 0;
+        for (int piece = 0; piece < weights.length; piece++) {
+            if (weights[piece] < 0) {
+                throw new IllegalArgumentException("Negative weight for piece " + piece);
+            }
+            total = Math.addExact(total, weights[piece]);
+            cumulative[piece] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one piece needs a positive weight");
+        }
+        return cumulative;
+    }
+
+    @Override
+    protected int generate() {
+        int roll = random.nextInt(cumulative[cumulative.length - 1]);
+        int piece = 0;
+        while (cumulative[piece] <= roll) {
+            piece++;
+        }
+        return piece;
+    }
+
+    @Override
+    public PieceGenerator split() {
+        return new WeightedPieceGenerator(random.split(), getLookahead(), cumulative);
+    }
+}
@@ -0,0 +1,79 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * The random keys used to hash game states. A state's hash is the XOR of the keys of everything in it - each filled
+ * cell and its colour, the pieces in hand and the multiplier - so when one thing changes the hash is updated by
+ * XORing its old key out and its new key in, rather than hashing the whole board again.
+ * <p>
+ * Rather than a table of a random long for every cell and colour, each key is worked out when it's needed by
+ * scrambling its position with the SplitMix64 finaliser. That's a few multiplies, and keeps the keys the same on every
+ * run and every board size, so hashes can be compared between games. Searches which keep positions of their own can
+ * use the keys to hash them the same way Game.getHash() does.
+ */
+public final class Zobrist {
+
+    /**
+     * The golden ratio in fixed point, used to spread consecutive inputs apart before mixing
+     */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Keeps the keys of each kind of thing apart
+     */
+    private static final long CELL_SALT = 0x243F6A8885A308D3L;
+    private static final long PIECE_SALT = 0x13198A2E03707344L;
+    private static final long MULTIPLIER_SALT = 0xA4093822299F31D0L;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Get the key of a cell holding a colour
+     *
+     * @param x      column
+     * @param y      row
+     * @param colour the cell's value. Empty cells have no key, so an empty board hashes to 0.
+     * @return the key
+     */
+    public static long cell(int x, int y, int colour) {
+        if (colour == 0) {
+            return 0;
+        }
+        //6 bits each for x and y, as grids are up to 64 a side, and 8 for the colour, as the grid stores bytes
+        return mix(CELL_SALT + (((long) y << 14 | (long) x << 8 | (colour & 0xFF)) + 1) * GAMMA);
+    }
+
+    /**
+     * Get the key of a piece in one of the player's hands. The rotation is left out: the player can turn a piece any
+     * way for free, so positions which only differ by it are the same position.
+     *
+     * @param slot  0 for the current piece, 1 for the following piece
+     * @param piece the piece
+     * @return the key
+     */
+    public static long piece(int slot, GamePiece piece) {
+        return mix(PIECE_SALT + ((long) slot * GamePiece.PIECES + piece.getPiece() + 1) * GAMMA);
+    }
+
+    /**
+     * Get the key of the multiplier
+     *
+     * @param multiplier the multiplier
+     * @return the key
+     */
+    public static long multiplier(int multiplier) {
+        return mix(MULTIPLIER_SALT + ((long) multiplier + 1) * GAMMA);
+    }
+
+    /**
+     * Scramble a long so every bit of the input affects every bit of the output (the SplitMix64 finaliser)
+     *
+     * @param z the input
+     * @return the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
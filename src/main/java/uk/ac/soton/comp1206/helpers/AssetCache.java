@@ -0,0 +1,181 @@
+package uk.ac.soton.comp1206.helpers;
+
+import javafx.scene.image.Image;
+import javafx.scene.media.AudioClip;
+import javafx.scene.media.Media;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Loads images, sounds and music from the classpath, once each. Assets are looked up by their path from the root of
+ * the resources, such as "/images/TetrECS.png", so they load the same from the build folder or from inside the jar.
+ * <p>
+ * The first request for an asset decodes it and every request after that gets the same object back, from any thread.
+ * Two threads asking for the same asset at once only decode it once; the second waits for the first. An asset which
+ * can't be found or decoded is logged once and comes back as null from then on.
+ * <p>
+ * preload() decodes a list of assets on a background thread at startup, so by the time a scene or a sound effect
+ * wants one it's already there. getStats() says how well that's working.
+ */
+public final class AssetCache {
+
+    private static final Logger logger = LogManager.getLogger(AssetCache.class);
+
+    /**
+     * Stands in for an asset that couldn't be loaded, so it isn't tried again
+     */
+    private static final Object MISSING = new Object();
+
+    /**
+     * Every asset loaded so far, by path
+     */
+    private static final Map<String, Object> assets = new ConcurrentHashMap<>();
+
+    /**
+     * Every request for an asset
+     */
+    private static final AtomicLong requests = new AtomicLong();
+
+    /**
+     * Requests which had to load the asset
+     */
+    private static final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Assets which couldn't be loaded
+     */
+    private static final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Total time spent loading, in nanoseconds
+     */
+    private static final AtomicLong loadTime = new AtomicLong();
+
+    private AssetCache() {
+    }
+
+    /**
+     * Get an image
+     *
+     * @param path path of the image from the root of the resources
+     * @return the image, or null if it couldn't be loaded
+     */
+    public static Image getImage(String path) {
+        //loaded straight away rather than in the background, so it's whole by the time it's cached
+        return get(path, Image.class, url -> {
+            Image image = new Image(url.toExternalForm(), false);
+            if (image.isError()) {
+                throw new IllegalStateException(image.getException());
+            }
+            return image;
+        });
+    }
+
+    /**
+     * Get a sound effect. The clip is decoded into memory, so playing it never goes back to the file.
+     *
+     * @param path path of the sound from the root of the resources
+     * @return the clip, or null if it couldn't be loaded
+     */
+    public static AudioClip getClip(String path) {
+        return get(path, AudioClip.class, url -> new AudioClip(url.toExternalForm()));
+    }
+
+    /**
+     * Get a piece of music. Music is streamed as it plays, so this is only the source; keep the player around to
+     * play it again without reopening it.
+     *
+     * @param path path of the music from the root of the resources
+     * @return the media, or null if it couldn't be loaded
+     */
+    public static Media getMedia(String path) {
+        return get(path, Media.class, url -> new Media(url.toExternalForm()));
+    }
+
+    /**
+     * Load assets on a background thread, so they're ready before they're asked for. Returns straight away.
+     *
+     * @param images paths of images
+     * @param clips  paths of sound effects
+     * @param media  paths of music
+     */
+    public static void preload(List<String> images, List<String> clips, List<String> media) {
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            images.forEach(AssetCache::getImage);
+            clips.forEach(AssetCache::getClip);
+            media.forEach(AssetCache::getMedia);
+            logger.info("Preloaded {} assets in {} ms", images.size() + clips.size() + media.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }, "Asset preload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Describe how the cache is doing: how many assets it holds, how many requests it answered without loading
+     * anything, and how long loading took
+     *
+     * @return the stats, on one line
+     */
+    public static String getStats() {
+        long total = requests.get();
+        long loaded = misses.get();
+        long found = total - loaded;
+        long failed = failures.get();
+        return String.format("%d assets cached, %d hits, %d misses (%.1f%% hit rate), %d failed, %.1f ms loading",
+                assets.size() - failed, found, loaded, total == 0 ? 0 : 100.0 * found / total, failed,
+                loadTime.get() / 1e6);
+    }
+
+    /**
+     * Get an asset from the cache, loading it if this is the first time it's been asked for
+     *
+     * @param path   path of the asset from the root of the resources
+     * @param type   what kind of asset it is
+     * @param loader decodes the asset from its URL
+     * @param <T>    what kind of asset it is
+     * @return the asset, or null if it couldn't be loaded
+     */
+    private static <T> T get(String path, Class<T> type, Function<URL, T> loader) {
+        requests.incrementAndGet();
+        Object asset = assets.computeIfAbsent(path, key -> load(key, loader));
+        return asset == MISSING ? null : type.cast(asset);
+    }
+
+    /**
+     * Load an asset, timing it
+     *
+     * @param path   path of the asset from the root of the resources
+     * @param loader decodes the asset from its URL
+     * @return the asset, or MISSING if it couldn't be loaded
+     */
+    private static Object load(String path, Function<URL, ?> loader) {
+        misses.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            URL url = AssetCache.class.getResource(path);
+            if (url == null) {
+                logger.error("Asset not found: " + path);
+                failures.incrementAndGet();
+                return MISSING;
+            }
+            Object asset = loader.apply(url);
+            logger.debug("Loaded {} in {} ms", path, (System.nanoTime() - start) / 1_000_000);
+            return asset;
+        } catch (RuntimeException e) {
+            logger.error("Could not load asset " + path + ": " + e.getMessage());
+            failures.incrementAndGet();
+            return MISSING;
+        } finally {
+            loadTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+}
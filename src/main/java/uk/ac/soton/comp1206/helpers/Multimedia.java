@@ -1,26 +1,58 @@
 package uk.ac.soton.comp1206.helpers;
 
+import javafx.scene.media.AudioClip;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Helper to play audio. Formatted using static enums, so can call any sound with
  * Multimedia.playAudioFile(<sound type>) etc.
+ * <p>
+ * Sounds come from the AssetCache. Sound effects are decoded into memory once and played from there, and each piece of
+ * music keeps its player, so going back to a scene restarts its music rather than opening the file again.
+ * <p>
+ * Sound effects go through a SoundPool, which limits how many play at once and how often each can start. When the
+ * voices are all busy, the sounds that matter most (losing, levelling up, clearing lines) cut off the ones that matter
+ * least (rotating).
  */
 
 public class Multimedia {
     /**
-     * the background music player
+     * the volume everything is played at
      */
-    private static MediaPlayer backgroundMusicPlayer;
+    private static final double VOLUME = 0.02;
+
+    /**
+     * how many sound effects can play at once
+     */
+    private static final int VOICES = 6;
+
+    /**
+     * the shortest time between two starts of the same sound effect, in nanoseconds
+     */
+    private static final long MIN_INTERVAL = 50_000_000L;
+
     /**
-     * the sound effect music player
+     * decides which sound effects get to play
      */
-    private static MediaPlayer audioPlayer;
+    private static final SoundPool soundPool = new SoundPool(VOICES, MIN_INTERVAL);
+
+    /**
+     * the player of each piece of music played so far
+     */
+    private static final Map<MUSIC, MediaPlayer> musicPlayers = new EnumMap<>(MUSIC.class);
+
+    /**
+     * the background music player
+     */
+    private static MediaPlayer backgroundMusicPlayer;
     private static final Logger logger = LogManager.getLogger(Multimedia.class);
 
     /**
@@ -33,85 +65,123 @@ public class Multimedia {
      */
     public static enum MUSIC {END, GAME, GAME_START, MENU}
 
-
     /**
-     * plays a audiofile specified by the filepath.
-     *
-     * @param filePath : the filepath of the sound to play
-     */
-    private static void playAudioFile(String filePath) { //plays a specified audio file once
-        //Media only accepts uri strings. This converts our path to a uri string.
-        File file = new File(filePath);
-        String uriString = file.toURI().toString();
-        audioPlayer = new MediaPlayer(new Media(uriString));
-        audioPlayer.setVolume(0.02); //set audio volume
-        audioPlayer.play();
-    }
-
-    /**
-     * @param sound the name of the sound to play. Used to get the filepath of the actual sound
+     * @param sound the name of the sound to play. Used to get the sound from the cache
      */
     public static void playAudioFile(SOUND sound) {
-        String relativePath = "src" + File.separator + "main" + File.separator + "resources" + File.separator + "sounds" + File.separator;
-
-        switch (sound) {
-            case CLEAR -> relativePath = relativePath + "clear.wav";
-            case FAIL -> relativePath = relativePath + "fail.wav";
-            case INTRO -> relativePath = relativePath + "intro.mp3";
-            case LEVEL -> relativePath = relativePath + "level.wav";
-            case PLACE -> relativePath = relativePath + "place.wav";
-            case PLING -> relativePath = relativePath + "pling.wav";
-            case ROTATE -> relativePath = relativePath + "rotate.wav";
-            case EXPLODE -> relativePath = relativePath + "explode.wav";
-            case LIFEGAIN -> relativePath = relativePath + "lifegain.wav";
-            case LIFELOSE -> relativePath = relativePath + "lifelose.wav";
-            case TRANSITION -> relativePath = relativePath + "transition.wav";
+        AudioClip clip = AssetCache.getClip(path(sound));
+        if (clip == null) {
+            return;
+        }
+        if (soundPool.play(sound, clip, priority(sound), VOLUME, System.nanoTime())) {
+            logger.trace("Played : {}", sound);
         }
-
-        playAudioFile(relativePath);
-        logger.info("Played : " + sound);
     }
 
     /**
-     * Play background music from the filepath specified
+     * get how important a sound effect is, for when it has to fight for a voice
      *
-     * @param filePath the filepath of the music to play
+     * @param sound the sound
+     * @return the priority, higher is more important
      */
-    private static void playBackgroundMusic(String filePath) { //loop a specified audiofile
-
-        //Media only accepts uri strings. This converts our path to a uri string.
-        File file = new File(filePath);
-        String uriString = file.toURI().toString();
-
-        backgroundMusicPlayer = new MediaPlayer(new Media(uriString));
-        backgroundMusicPlayer.setCycleCount(MediaPlayer.INDEFINITE); //make it so the music loops forever
-        backgroundMusicPlayer.setVolume(0.02); //set volume
-        backgroundMusicPlayer.play();
+    private static int priority(SOUND sound) {
+        return switch (sound) {
+            case EXPLODE, LIFELOSE -> 4;
+            case LEVEL, LIFEGAIN, INTRO, TRANSITION -> 3;
+            case CLEAR -> 2;
+            case PLACE, FAIL, PLING -> 1;
+            case ROTATE -> 0;
+        };
     }
 
     /**
      * Play the background music.
      *
-     * @param music the music to play on loop as an enum. it's converted to a filepath.
+     * @param music the music to play on loop as an enum
      */
     public static void playBackgroundMusic(MUSIC music) {//loop a specifed audioFile based on enum
-        String relativePath = "src" + File.separator + "main" + File.separator + "resources" + File.separator + "music" + File.separator;
-
         //stop the current track from playing if there is one
         if (backgroundMusicPlayer != null) {
             backgroundMusicPlayer.stop();
         }
 
-        switch (music) {
-            case END -> relativePath = relativePath + "end.wav";
-            case GAME -> relativePath = relativePath + "game.wav";
-            case MENU -> relativePath = relativePath + "menu.mp3";
-            case GAME_START -> relativePath = relativePath + "game_start.wav";
+        backgroundMusicPlayer = musicPlayers.computeIfAbsent(music, key -> {
+            Media media = AssetCache.getMedia(path(key));
+            if (media == null) {
+                return null;
+            }
+            MediaPlayer player = new MediaPlayer(media);
+            player.setCycleCount(MediaPlayer.INDEFINITE); //make it so the music loops forever
+            player.setVolume(VOLUME); //set volume
+            return player;
+        });
+        if (backgroundMusicPlayer == null) {
+            return;
         }
-
-        //Media only accepts uri strings. This converts our path to a uri string.
-        playBackgroundMusic(relativePath);
+        backgroundMusicPlayer.play();
         logger.info("Played : " + music);
     }
-}
 
+    /**
+     * get the paths of every sound effect, for preloading
+     *
+     * @return the classpath paths
+     */
+    public static List<String> soundPaths() {
+        List<String> paths = new ArrayList<>();
+        for (SOUND sound : SOUND.values()) {
+            paths.add(path(sound));
+        }
+        return paths;
+    }
+
+    /**
+     * get the paths of every piece of music, for preloading
+     *
+     * @return the classpath paths
+     */
+    public static List<String> musicPaths() {
+        List<String> paths = new ArrayList<>();
+        for (MUSIC music : MUSIC.values()) {
+            paths.add(path(music));
+        }
+        return paths;
+    }
+
+    /**
+     * get where a sound effect is in the resources
+     *
+     * @param sound the sound
+     * @return the classpath path
+     */
+    private static String path(SOUND sound) {
+        return "/sounds/" + switch (sound) {
+            case CLEAR -> "clear.wav";
+            case FAIL -> "fail.wav";
+            case INTRO -> "intro.mp3";
+            case LEVEL -> "level.wav";
+            case PLACE -> "place.wav";
+            case PLING -> "pling.wav";
+            case ROTATE -> "rotate.wav";
+            case EXPLODE -> "explode.wav";
+            case LIFEGAIN -> "lifegain.wav";
+            case LIFELOSE -> "lifelose.wav";
+            case TRANSITION -> "transition.wav";
+        };
+    }
+
+    /**
+     * get where a piece of music is in the resources
+     *
+     * @param music the music
+     * @return the classpath path
+     */
+    private static String path(MUSIC music) {
+        return "/music/" + switch (music) {
+            case END -> "end.wav";
+            case GAME -> "game.wav";
+            case MENU -> "menu.mp3";
+            case GAME_START -> "game_start.wav";
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package uk.ac.soton.comp1206.helpers;
+
+import javafx.scene.media.AudioClip;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decides which sound effects get to play, so a burst of them can't pile up. Only used on the JavaFX thread.
+ * <p>
+ * There are a fixed number of voices. A sound takes a free voice if there is one; if not, it takes the voice of the
+ * oldest sound with a lower or equal priority, cutting it off. If every voice is playing something more important,
+ * the new sound is dropped. A voice is free again once its clip has stopped playing.
+ * <p>
+ * On top of that, each sound can only start once per minimum interval. Mashing rotate plays one rotate sound per
+ * interval, and the rest are dropped before they cost anything.
+ */
+public final class SoundPool {
+
+    private static final Logger logger = LogManager.getLogger(SoundPool.class);
+
+    /**
+     * The clip playing in each voice, or null if the voice is free
+     */
+    private final AudioClip[] clips;
+
+    /**
+     * The priority of what's playing in each voice
+     */
+    private final int[] priorities;
+
+    /**
+     * When each voice started, in nanoseconds
+     */
+    private final long[] started;
+
+    /**
+     * The shortest time between two starts of the same sound, in nanoseconds
+     */
+    private final long minInterval;
+
+    /**
+     * When each sound last started, in nanoseconds
+     */
+    private final Map<Multimedia.SOUND, Long> lastPlayed = new EnumMap<>(Multimedia.SOUND.class);
+
+    /**
+     * Create a pool
+     *
+     * @param voices      how many sounds can play at once
+     * @param minInterval the shortest time between two starts of the same sound, in nanoseconds
+     */
+    public SoundPool(int voices, long minInterval) {
+        if (voices < 1) {
+            throw new IllegalArgumentException("Sound pool needs at least one voice: " + voices);
+        }
+        this.clips = new AudioClip[voices];
+        this.priorities = new int[voices];
+        this.started = new long[voices];
+        this.minInterval = minInterval;
+    }
+
+    /**
+     * Play a sound, if it's allowed to
+     *
+     * @param sound    which sound it is, for the rate limit
+     * @param clip     the sound's clip
+     * @param priority how important it is. Higher priorities cut off lower ones when every voice is busy.
+     * @param volume   the volume to play at
+     * @param now      the time now, in nanoseconds
+     * @return true if it started playing, false if it was dropped
+     */
+    public boolean play(Multimedia.SOUND sound, AudioClip clip, int priority, double volume, long now) {
+        Long last = lastPlayed.get(sound);
+        if (last != null && now - last < minInterval) {
+            return false;
+        }
+
+        int voice = findVoice(priority);
+        if (voice < 0) {
+            logger.trace("No voice for {}, dropped", sound);
+            return false;
+        }
+        if (clips[voice] != null) {
+            logger.trace("{} cut off a sound to play", sound);
+            stop(clips[voice]);
+        }
+
+        clips[voice] = clip;
+        priorities[voice] = priority;
+        started[voice] = now;
+        lastPlayed.put(sound, now);
+        clip.play(volume, 0, 1, 0, priority);
+        return true;
+    }
+
+    /**
+     * Find a voice for a sound: a free one, or else the oldest playing something no more important
+     *
+     * @param priority the priority of the sound
+     * @return the voice, or -1 if every voice is playing something more important
+     */
+    private int findVoice(int priority) {
+        int victim = -1;
+        for (int voice = 0; voice < clips.length; voice++) {
+            if (clips[voice] == null || !clips[voice].isPlaying()) {
+                clips[voice] = null;
+                return voice;
+            }
+            if (priorities[voice] <= priority && (victim < 0 || priorities[voice] < priorities[victim]
+                    || (priorities[voice] == priorities[victim] && started[voice] < started[victim]))) {
+                victim = voice;
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Stop a clip. A clip can only be stopped as a whole, so every voice playing it is freed.
+     *
+     * @param clip the clip
+     */
+    private void stop(AudioClip clip) {
+        clip.stop();
+        for (int voice = 0; voice < clips.length; voice++) {
+            if (clips[voice] == clip) {
+                clips[voice] = null;
+            }
+        }
+    }
+}
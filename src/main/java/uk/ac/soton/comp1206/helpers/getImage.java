@@ -2,10 +2,12 @@ package uk.ac.soton.comp1206.helpers;
 
 import javafx.scene.image.Image;
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Contains static functions for returning images from image file.
+ * Contains static functions for returning images from image file. Images come from the AssetCache, so each is only
+ * decoded once.
  */
 public class getImage {
     /**
@@ -14,23 +16,40 @@ public class getImage {
     public static enum IMAGE {ECSGAMES, INSTRUCTIONS, TETRECS, BACKGROUND1}
 
     /**
-     * returns an image from the project resources folder.
+     * returns an image from the project resources.
      * @param image the image name
-     * @return the image.
+     * @return the image, or null if it couldn't be loaded
      */
     public static Image getImage(IMAGE image) {
-        String relativePath = "src" + File.separator + "main" + File.separator + "resources" + File.separator + "images" + File.separator;
+        return AssetCache.getImage(path(image));
+    }
 
-        switch (image) {
-            case ECSGAMES -> relativePath = relativePath + "ECSGames.png";
-            case INSTRUCTIONS -> relativePath = relativePath + "Instructions.png";
-            case TETRECS -> relativePath = relativePath + "TetrECS.png";
-            case BACKGROUND1 -> relativePath = relativePath + "1.jpg";
+    /**
+     * get the paths of every image, for preloading
+     *
+     * @return the classpath paths
+     */
+    public static List<String> paths() {
+        List<String> paths = new ArrayList<>();
+        for (IMAGE image : IMAGE.values()) {
+            paths.add(path(image));
         }
+        return paths;
+    }
 
-        //image class needs a file uri, so this gets around that
-        File temp = new File(relativePath);
-        return new Image(temp.toURI().toString());
+    /**
+     * get where an image is in the resources
+     *
+     * @param image the image name
+     * @return the classpath path
+     */
+    private static String path(IMAGE image) {
+        return "/images/" + switch (image) {
+            case ECSGAMES -> "ECSGames.png";
+            case INSTRUCTIONS -> "Instructions.png";
+            case TETRECS -> "TetrECS.png";
+            case BACKGROUND1 -> "1.jpg";
+        };
     }
 
 }
@@ -1,115 +1,354 @@
 package uk.ac.soton.comp1206.network;
 
 import com.neovisionaries.ws.client.*;
-import javafx.scene.control.Alert;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.event.CommunicationsListener;
+import uk.ac.soton.comp1206.event.MessageListener;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Uses web sockets to talk to a web socket server and relays communication to attached listeners
  * <p>
- * YOU DO NOT NEED TO WORRY ABOUT THIS CLASS! Leave it be :-)
+ * Connecting happens in the background, so creating a communicator returns straight away whether or not the server is
+ * there. If the connection fails or drops, it tries again after a delay which doubles each time, up to a limit, with
+ * some randomness so a room full of clients doesn't come back all at once. Messages sent while disconnected are queued
+ * and go out as soon as it reconnects.
+ * <p>
+ * All the connection work - connecting, sending, queueing and reconnecting - happens on one background thread, in
+ * order, so none of it can block the game. The connection state can be watched from the JavaFX thread through
+ * stateProperty().
+ * <p>
+ * Listeners can take every message as raw text, or subscribe to one kind of decoded Message. Each message is decoded
+ * once, and only goes to the subscribers of its kind. Listeners are called on the socket's thread, and can be added
+ * and removed from any thread while messages are arriving. Adding one gives back a Subscription to remove it with.
  */
 public class Communicator {
 
     private static final Logger logger = LogManager.getLogger(Communicator.class);
 
+    /**
+     * How long to wait before the first reconnect, in milliseconds
+     */
+    private static final long BASE_DELAY = 500;
+
+    /**
+     * The longest to wait between reconnects, in milliseconds
+     */
+    private static final long MAX_DELAY = 30_000;
+
+    /**
+     * How long to wait for the server to answer when connecting, in milliseconds
+     */
+    private static final int CONNECT_TIMEOUT = 5_000;
+
+    /**
+     * How many messages to hold while disconnected. Past this the oldest are dropped.
+     */
+    private static final int MAX_QUEUED = 64;
+
+    /**
+     * How long close() waits for the connection to be shut, in milliseconds
+     */
+    private static final long CLOSE_TIMEOUT = 1_000;
+
     /**
      * Attached communication listeners listening to messages on this Communicator. Each will be sent any messages.
      */
-    private final List<CommunicationsListener> handlers = new ArrayList<>();
+    private final ListenerRegistry<CommunicationsListener> handlers = new ListenerRegistry<>();
+
+    /**
+     * Listeners for each kind of decoded message
+     */
+    private final Map<Class<? extends Message>, ListenerRegistry<MessageListener<? extends Message>>> subscribers =
+            new ConcurrentHashMap<>();
 
+    /**
+     * Turns what the server sends into Messages
+     */
+    private final ProtocolDecoder decoder = new ProtocolDecoder();
+
+    /**
+     * The server to connect to
+     */
+    private final String server;
+
+    /**
+     * Does all the connection work, one job at a time
+     */
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "Communicator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Messages waiting for the connection. Only used on the executor.
+     */
+    private final Queue<String> outbound = new ArrayDeque<>();
+
+    /**
+     * The connection state, as seen from the JavaFX thread
+     */
+    private final ReadOnlyObjectWrapper<ConnectionState> state = new ReadOnlyObjectWrapper<>(ConnectionState.CONNECTING);
+
+    /**
+     * The connection state, as seen from the executor
+     */
+    private volatile ConnectionState currentState = ConnectionState.CONNECTING;
+
+    /**
+     * How many times in a row connecting has failed. Only used on the executor.
+     */
+    private int attempts = 0;
+
+    /**
+     * The socket, or null if there isn't one. Only used on the executor.
+     */
     private WebSocket ws = null;
 
     /**
-     * Create a new communicator to the given web socket server
+     * Create a new communicator to the given web socket server, and start connecting in the background
      *
      * @param server server to connect to
      */
     public Communicator(String server) {
+        this.server = server;
+        //a reconnect waiting when the communicator closes is dropped, rather than holding up close()
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.execute(this::connect);
+    }
+
+    /**
+     * Get the connection state, to watch from the JavaFX thread
+     *
+     * @return the connection state
+     */
+    public ReadOnlyObjectProperty<ConnectionState> stateProperty() {
+        return state.getReadOnlyProperty();
+    }
+
+    /**
+     * Get the connection state. Safe from any thread.
+     *
+     * @return the connection state
+     */
+    public ConnectionState getState() {
+        return currentState;
+    }
+
+    /**
+     * Send a message to the server. If it isn't connected, the message is queued until it is. Returns straight away.
+     *
+     * @param message Message to send
+     */
+    public void send(String message) {
+        submit(() -> {
+            if (currentState == ConnectionState.CONNECTED) {
+                logger.info("Sending message: " + message);
+                ws.sendText(message);
+                return;
+            }
+            if (currentState == ConnectionState.CLOSED) {
+                return;
+            }
+            if (outbound.size() == MAX_QUEUED) {
+                logger.warn("Outbound queue full, dropping: " + outbound.poll());
+            }
+            logger.info("Not connected, queueing message: " + message);
+            outbound.add(message);
+        });
+    }
 
+    /**
+     * Close the connection for good, waiting a moment for it to shut. Messages still queued are thrown away, with a
+     * warning.
+     */
+    public void close() {
+        submit(() -> {
+            setState(ConnectionState.CLOSED);
+            if (!outbound.isEmpty()) {
+                logger.warn("Closing with {} unsent messages", outbound.size());
+                outbound.clear();
+            }
+            if (ws != null) {
+                ws.disconnect();
+                ws = null;
+            }
+        });
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                logger.warn("Communicator did not close in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Add a new listener to receive messages from the server
+     *
+     * @param listener the listener to add
+     * @return the subscription, to remove the listener with
+     */
+    public Subscription addListener(CommunicationsListener listener) {
+        return this.handlers.add(listener);
+    }
+
+    /**
+     * Add a listener for one kind of message from the server, such as Message.Channels.class
+     *
+     * @param type     the kind of message
+     * @param listener the listener to add
+     * @param <T>      the kind of message
+     * @return the subscription, to remove the listener with
+     */
+    public <T extends Message> Subscription subscribe(Class<T> type, MessageListener<T> listener) {
+        return subscribers.computeIfAbsent(type, key -> new ListenerRegistry<>()).add(listener);
+    }
+
+    /**
+     * Clear all current listeners, raw and decoded
+     */
+    public void clearListeners() {
+        this.handlers.clear();
+        for (ListenerRegistry<MessageListener<? extends Message>> registry : subscribers.values()) {
+            registry.clear();
+        }
+    }
+
+    /**
+     * Run a job on the executor, unless the communicator has been closed
+     *
+     * @param job the job
+     */
+    private void submit(Runnable job) {
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Communicator closed, ignoring job");
+        }
+    }
+
+    /**
+     * Try to connect, sending anything queued if it works and trying again later if it doesn't. Runs on the executor.
+     */
+    private void connect() {
+        if (currentState == ConnectionState.CLOSED) {
+            return;
+        }
+        setState(ConnectionState.CONNECTING);
         try {
             var socketFactory = new WebSocketFactory();
+            socketFactory.setConnectionTimeout(CONNECT_TIMEOUT);
 
-            //Connect to the server
             ws = socketFactory.createSocket(server);
+            ws.addListener(createAdapter());
             ws.connect();
-            logger.info("Connected to " + server);
-
-            //When a message is received, call the receive method
-            ws.addListener(new WebSocketAdapter() {
-                @Override
-                public void onTextMessage(WebSocket websocket, String message) throws Exception {
-                    Communicator.this.receive(websocket, message);
-                }
-
-                @Override
-                public void onPingFrame(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
-                    logger.info("Ping? Pong!");
-                }
-            });
-
-            //Error handling
-            ws.addListener(new WebSocketAdapter() {
-                @Override
-                public void onTextMessage(WebSocket websocket, String message) throws Exception {
-                    if (message.startsWith("ERROR")) {
-                        logger.error(message);
-                    }
-                }
-
-                @Override
-                public void handleCallbackError(WebSocket webSocket, Throwable throwable) throws Exception {
-                    logger.error("Callback Error:" + throwable.getMessage());
-                    throwable.printStackTrace();
-                }
-
-                @Override
-                public void onError(WebSocket webSocket, WebSocketException e) throws Exception {
-                    logger.error("Error:" + e.getMessage());
-                    e.printStackTrace();
-                }
-            });
-
         } catch (Exception e) {
-            logger.error("Socket error: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Unable to connect to " + server + ": " + e.getMessage());
+            ws = null;
+            scheduleReconnect();
+            return;
+        }
 
-            Alert error = new Alert(Alert.AlertType.ERROR, "Unable to communicate with the TetrECS server\n\n" + e.getMessage() + "\n\nPlease ensure you are connected to the VPN");
-            error.showAndWait();
-            System.exit(1);
+        logger.info("Connected to " + server);
+        attempts = 0;
+        setState(ConnectionState.CONNECTED);
+        while (!outbound.isEmpty()) {
+            String message = outbound.poll();
+            logger.info("Sending queued message: " + message);
+            ws.sendText(message);
         }
     }
 
     /**
-     * Send a message to the server
+     * The connection was lost, so try again later. Runs on the executor.
      *
-     * @param message Message to send
+     * @param socket the socket which disconnected
      */
-    public void send(String message) {
-        logger.info("Sending message: " + message);
+    private void disconnected(WebSocket socket) {
+        //a socket which has already been replaced or closed doesn't matter any more
+        if (socket != ws || currentState == ConnectionState.CLOSED) {
+            return;
+        }
+        logger.warn("Disconnected from " + server);
+        ws = null;
+        scheduleReconnect();
+    }
 
-        ws.sendText(message);
+    /**
+     * Wait, then try connecting again. The wait doubles with each failure up to MAX_DELAY, and is picked at random
+     * from the top half of that so clients spread out. Runs on the executor.
+     */
+    private void scheduleReconnect() {
+        setState(ConnectionState.DISCONNECTED);
+        if (executor.isShutdown()) {
+            return;
+        }
+        long delay = Math.min(MAX_DELAY, BASE_DELAY << Math.min(attempts, 16));
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        attempts++;
+        logger.info("Reconnecting in {} ms (attempt {})", delay, attempts);
+        executor.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Add a new listener to receive messages from the server
+     * Update the connection state, and pass it on to the JavaFX thread
      *
-     * @param listener the listener to add
+     * @param newState the new state
      */
-    public void addListener(CommunicationsListener listener) {
-        this.handlers.add(listener);
+    private void setState(ConnectionState newState) {
+        currentState = newState;
+        Platform.runLater(() -> state.set(newState));
     }
 
     /**
-     * Clear all current listeners
+     * Create the listener for a socket, which passes messages on and notices when it disconnects
+     *
+     * @return the listener
      */
-    public void clearListeners() {
-        this.handlers.clear();
+    private WebSocketAdapter createAdapter() {
+        return new WebSocketAdapter() {
+            @Override
+            public void onTextMessage(WebSocket websocket, String message) throws Exception {
+                Communicator.this.receive(websocket, message);
+            }
+
+            @Override
+            public void onPingFrame(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
+                logger.info("Ping? Pong!");
+            }
+
+            @Override
+            public void onDisconnected(WebSocket websocket, WebSocketFrame serverCloseFrame,
+                                       WebSocketFrame clientCloseFrame, boolean closedByServer) throws Exception {
+                submit(() -> disconnected(websocket));
+            }
+
+            @Override
+            public void handleCallbackError(WebSocket webSocket, Throwable throwable) throws Exception {
+                logger.error("Callback Error:" + throwable.getMessage());
+                throwable.printStackTrace();
+            }
+
+            @Override
+            public void onError(WebSocket webSocket, WebSocketException e) throws Exception {
+                logger.error("Error:" + e.getMessage());
+            }
+        };
     }
 
     /**
@@ -121,9 +360,29 @@ public class Communicator {
     private void receive(WebSocket websocket, String message) {
         logger.info("Received: " + message);
 
-        for (CommunicationsListener handler : handlers) {
-            handler.receiveCommunication(message);
+        handlers.forEach(handler -> handler.receiveCommunication(message));
+
+        Message decoded = decoder.decode(message);
+        if (decoded instanceof Message.Error error) {
+            logger.error(error.message());
+        }
+        var listeners = subscribers.get(decoded.getClass());
+        if (listeners != null) {
+            listeners.forEach(listener -> deliver(listener, decoded));
         }
     }
 
+    /**
+     * Pass a message to a listener subscribed to its kind
+     *
+     * @param listener the listener
+     * @param message  the message, of the kind the listener subscribed to
+     * @param <T>      the kind of message
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Message> void deliver(MessageListener<T> listener, Message message) {
+        //subscribe only files a listener under the kind it takes, so this cast can't fail
+        listener.receiveMessage((T) message);
+    }
+
 }
@@ -0,0 +1,23 @@
+package uk.ac.soton.comp1206.network;
+
+/**
+ * Where the Communicator's connection to the server is up to
+ */
+public enum ConnectionState {
+    /**
+     * trying to connect
+     */
+    CONNECTING,
+    /**
+     * connected, and messages go straight out
+     */
+    CONNECTED,
+    /**
+     * not connected, and waiting to try again. Messages are queued until then.
+     */
+    DISCONNECTED,
+    /**
+     * closed for good
+     */
+    CLOSED
+}
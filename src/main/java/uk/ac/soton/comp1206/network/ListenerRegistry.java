@@ -0,0 +1,137 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A list of listeners which can be added to and removed from on one thread while another is calling them.
+ * <p>
+ * The listeners are held in an array which is never changed once published. Adding or removing one builds a new array
+ * and swaps it in with a compare-and-set, trying again if another thread got there first, so nothing ever locks. Calling
+ * the listeners just reads the current array and walks it, which is as quick as a plain list and can't be upset by a
+ * change halfway through. Each entry also has a flag cleared when it's removed, so a listener isn't called after its
+ * removal has returned even by a walk which started before it.
+ *
+ * @param <L> the type of listener
+ */
+final class ListenerRegistry<L> {
+
+    /**
+     * Nothing registered
+     */
+    private static final Entry<?>[] EMPTY = new Entry<?>[0];
+
+    /**
+     * The listeners registered now, oldest first. The array itself is never written to.
+     */
+    private final AtomicReference<Entry<?>[]> entries = new AtomicReference<>(EMPTY);
+
+    /**
+     * One registered listener, which is also its subscription
+     *
+     * @param <L> the type of listener
+     */
+    private static final class Entry<L> implements Subscription {
+
+        /**
+         * The listener
+         */
+        private final L listener;
+
+        /**
+         * The registry it's in
+         */
+        private final ListenerRegistry<L> registry;
+
+        /**
+         * Cleared once it's removed
+         */
+        private volatile boolean active = true;
+
+        Entry(L listener, ListenerRegistry<L> registry) {
+            this.listener = listener;
+            this.registry = registry;
+        }
+
+        @Override
+        public void unsubscribe() {
+            if (active) {
+                active = false;
+                registry.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Add a listener
+     *
+     * @param listener the listener
+     * @return its subscription, to remove it with
+     */
+    Subscription add(L listener) {
+        Entry<L> entry = new Entry<>(listener, this);
+        Entry<?>[] current;
+        Entry<?>[] updated;
+        do {
+            current = entries.get();
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = entry;
+        } while (!entries.compareAndSet(current, updated));
+        return entry;
+    }
+
+    /**
+     * Remove every listener
+     */
+    void clear() {
+        for (Entry<?> entry : entries.getAndSet(EMPTY)) {
+            entry.active = false;
+        }
+    }
+
+    /**
+     * Call every listener
+     *
+     * @param action what to do with each
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super L> action) {
+        for (Entry<?> entry : entries.get()) {
+            if (entry.active) {
+                //only add puts entries in, and only of type L
+                action.accept(((Entry<L>) entry).listener);
+            }
+        }
+    }
+
+    /**
+     * Take an entry out of the array, if it's still there
+     *
+     * @param entry the entry
+     */
+    private void remove(Entry<?> entry) {
+        Entry<?>[] current;
+        Entry<?>[] updated;
+        do {
+            current = entries.get();
+            int index = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == entry) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            if (current.length == 1) {
+                updated = EMPTY;
+            } else {
+                updated = new Entry<?>[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            }
+        } while (!entries.compareAndSet(current, updated));
+    }
+}
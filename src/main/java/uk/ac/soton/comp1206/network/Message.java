@@ -0,0 +1,85 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.List;
+
+/**
+ * A message from the server, decoded by the ProtocolDecoder. There is one record per command, holding its fields
+ * already split out, so listeners never have to pick the raw text apart themselves.
+ */
+public sealed interface Message {
+
+    /**
+     * The list of open channels, in answer to LIST
+     *
+     * @param channels the channel names
+     */
+    record Channels(List<String> channels) implements Message {
+    }
+
+    /**
+     * This client joined a channel
+     *
+     * @param channel the channel name
+     */
+    record Join(String channel) implements Message {
+    }
+
+    /**
+     * This client's nickname in the channel
+     *
+     * @param name the nickname
+     */
+    record Nick(String name) implements Message {
+    }
+
+    /**
+     * A chat message in the channel
+     *
+     * @param from who sent it
+     * @param text what they said
+     */
+    record Msg(String from, String text) implements Message {
+    }
+
+    /**
+     * The users in the channel
+     *
+     * @param users their nicknames
+     */
+    record Users(List<String> users) implements Message {
+    }
+
+    /**
+     * The online high scores, in answer to HISCORES
+     *
+     * @param scores the scores, as the server ordered them
+     */
+    record HiScores(List<Score> scores) implements Message {
+    }
+
+    /**
+     * One entry in the online high scores
+     *
+     * @param name  who got it
+     * @param score the score
+     */
+    record Score(String name, int score) {
+    }
+
+    /**
+     * The server turned a request down
+     *
+     * @param message why
+     */
+    record Error(String message) implements Message {
+    }
+
+    /**
+     * Anything the decoder doesn't know, passed on as it came
+     *
+     * @param command the first word of the message
+     * @param body    the rest of it, or an empty string
+     */
+    record Unknown(String command, String body) implements Message {
+    }
+}
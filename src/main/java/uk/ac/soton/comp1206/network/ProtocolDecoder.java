@@ -0,0 +1,112 @@
+package uk.ac.soton.comp1206.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Turns the text frames the server sends into Messages. A frame is a command word, then a space and the command's
+ * body, if it has one. The command picks a parser from a table, so each frame is looked at once, whatever it is.
+ * <p>
+ * Stateless, so one decoder can be shared by any number of threads.
+ */
+public class ProtocolDecoder {
+
+    private static final Logger logger = LogManager.getLogger(ProtocolDecoder.class);
+
+    /**
+     * The parser for each command's body
+     */
+    private final Map<String, Function<String, Message>> parsers = new HashMap<>();
+
+    /**
+     * Create a decoder which knows every command the game uses
+     */
+    public ProtocolDecoder() {
+        parsers.put("CHANNELS", body -> new Message.Channels(lines(body)));
+        parsers.put("JOIN", Message.Join::new);
+        parsers.put("NICK", Message.Nick::new);
+        parsers.put("MSG", ProtocolDecoder::parseMsg);
+        parsers.put("USERS", body -> new Message.Users(lines(body)));
+        parsers.put("HISCORES", ProtocolDecoder::parseHiScores);
+        parsers.put("ERROR", Message.Error::new);
+    }
+
+    /**
+     * Decode one frame
+     *
+     * @param frame the text the server sent
+     * @return the message. Commands the decoder doesn't know come back as Message.Unknown.
+     */
+    public Message decode(String frame) {
+        int space = frame.indexOf(' ');
+        String command = space < 0 ? frame : frame.substring(0, space);
+        String body = space < 0 ? "" : frame.substring(space + 1);
+
+        Function<String, Message> parser = parsers.get(command);
+        if (parser == null) {
+            return new Message.Unknown(command, body);
+        }
+        return parser.apply(body);
+    }
+
+    /**
+     * Split a body into its lines, leaving out empty ones
+     *
+     * @param body the body
+     * @return the lines
+     */
+    private static List<String> lines(String body) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (start < body.length()) {
+            int end = body.indexOf('\n', start);
+            if (end < 0) {
+                end = body.length();
+            }
+            if (end > start) {
+                lines.add(body.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return List.copyOf(lines);
+    }
+
+    /**
+     * Parse a chat message, sent as name:text
+     *
+     * @param body the body
+     * @return the message
+     */
+    private static Message parseMsg(String body) {
+        int colon = body.indexOf(':');
+        if (colon < 0) {
+            return new Message.Msg("", body);
+        }
+        return new Message.Msg(body.substring(0, colon), body.substring(colon + 1));
+    }
+
+    /**
+     * Parse the high scores, sent as name:score, one per line. Lines which don't parse are skipped.
+     *
+     * @param body the body
+     * @return the message
+     */
+    private static Message parseHiScores(String body) {
+        List<Message.Score> scores = new ArrayList<>();
+        for (String line : lines(body)) {
+            int colon = line.lastIndexOf(':');
+            try {
+                scores.add(new Message.Score(line.substring(0, colon), Integer.parseInt(line.substring(colon + 1))));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                logger.warn("Skipping bad high score: " + line);
+            }
+        }
+        return new Message.HiScores(List.copyOf(scores));
+    }
+}
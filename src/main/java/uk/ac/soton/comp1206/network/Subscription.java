@@ -0,0 +1,14 @@
+package uk.ac.soton.comp1206.network;
+
+/**
+ * A listener's place in the Communicator, handed back when it's added. Cancel it when the listener is finished with,
+ * such as when its scene closes.
+ */
+public interface Subscription {
+
+    /**
+     * Stop the listener being called. Once this returns, the listener won't be called for any message which arrives
+     * afterwards. Safe to call from any thread, and more than once.
+     */
+    public void unsubscribe();
+}
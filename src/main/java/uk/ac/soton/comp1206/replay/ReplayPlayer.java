@@ -0,0 +1,278 @@
+package uk.ac.soton.comp1206.replay;
+
+import uk.ac.soton.comp1206.event.GameAction;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.NoMovesPenalty;
+import uk.ac.soton.comp1206.game.PieceGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plays a recorded replay back by re-simulating it on a fresh headless Game.
+ * <p>
+ * Each action is applied by ticking the game clock up to the time it was recorded and then applying it, so the timer
+ * runs out in exactly the same places. Timer expiries in the log are checked rather than applied, which catches a
+ * replay drifting out of sync with the engine.
+ * <p>
+ * runToEnd() re-simulates as fast as possible. For watching, bind a UI to getGame() and call advanceTo with the
+ * elapsed real time multiplied by the playback speed (1x, 4x...); seek() rewinds or jumps to any time.
+ */
+public class ReplayPlayer {
+
+    /**
+     * The whole replay
+     */
+    private final byte[] bytes;
+
+    /**
+     * Number of columns of the board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows of the board
+     */
+    private final int rows;
+
+    /**
+     * Seed the game's pieces came from
+     */
+    private final long seed;
+
+    /**
+     * What the game did when neither piece fitted anywhere
+     */
+    private final NoMovesPenalty noMovesPenalty;
+
+    /**
+     * The game being re-simulated
+     */
+    private Game game;
+
+    /**
+     * Where the next record starts
+     */
+    private int position;
+
+    /**
+     * The game clock at the last record read
+     */
+    private long lastTime;
+
+    /**
+     * Number of actions applied
+     */
+    private int actions;
+
+    /**
+     * Load a replay from a file
+     *
+     * @param file the replay file
+     * @return a player at the start of the replay
+     * @throws IOException if it could not be read
+     */
+    public static ReplayPlayer load(Path file) throws IOException {
+        return new ReplayPlayer(Files.readAllBytes(file));
+    }
+
+    /**
+     * Create a player for a replay, positioned at the start
+     *
+     * @param bytes the replay, as written by ReplayRecorder
+     */
+    public ReplayPlayer(byte[] bytes) {
+        this.bytes = bytes;
+        if (bytes.length < ReplayRecorder.HEADER_LENGTH || readInt(0) != ReplayRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a replay");
+        }
+        if (bytes[4] != ReplayRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version: " + bytes[4]);
+        }
+        if (bytes[7] != ReplayRecorder.GENERATOR_UNIFORM) {
+            throw new IllegalArgumentException("Unsupported piece generator: " + bytes[7]);
+        }
+        cols = bytes[5] & 0xFF;
+        rows = bytes[6] & 0xFF;
+        seed = readLong(8);
+        if (bytes[16] < 0 || bytes[16] >= NoMovesPenalty.values().length) {
+            throw new IllegalArgumentException("Unsupported no moves penalty: " + bytes[16]);
+        }
+        noMovesPenalty = NoMovesPenalty.values()[bytes[16]];
+        reset();
+    }
+
+    /**
+     * Go back to the start of the replay, with a fresh game
+     */
+    public void reset() {
+        game = new Game(cols, rows, PieceGenerator.uniform(seed));
+        game.setNoMovesPenalty(noMovesPenalty);
+        game.start();
+        position = ReplayRecorder.HEADER_LENGTH;
+        lastTime = 0;
+        actions = 0;
+    }
+
+    /**
+     * Get the game being re-simulated. A new game is created by reset() and seek().
+     *
+     * @return the game
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Check whether every action has been applied
+     *
+     * @return true at the end of the replay
+     */
+    public boolean isFinished() {
+        return position >= bytes.length;
+    }
+
+    /**
+     * Get how many actions have been applied so far
+     *
+     * @return number of actions
+     */
+    public int getActions() {
+        return actions;
+    }
+
+    /**
+     * Apply the next action, ticking the game clock up to when it happened
+     *
+     * @return false if the replay was already finished
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+
+        int op = bytes[position++] & 0xFF;
+        GameAction action = GameAction.values()[op >>> 6];
+        long time = lastTime + readVarLong();
+        lastTime = time;
+
+        int lives = game.getLivesValue();
+        game.tick(time - game.getClock());
+        if (action != GameAction.TIMEOUT && game.getLivesValue() != lives) {
+            throw new IllegalStateException("Replay out of sync: timer expired unrecorded before " + time);
+        }
+
+        switch (action) {
+            case PLACE -> {
+                int x = bytes[position++];
+                int y = bytes[position++];
+                game.place(x, y);
+            }
+            case ROTATE -> game.rotate(op & 3);
+            case SWAP -> game.swap();
+            case TIMEOUT -> {
+                //ticking to this time should have run the timer out by itself. With no moves costing a life, running
+                //out can cost more than one, so only check that it cost something
+                if (game.getLivesValue() >= lives) {
+                    throw new IllegalStateException("Replay out of sync: timer did not expire at " + time);
+                }
+            }
+        }
+        actions++;
+        return true;
+    }
+
+    /**
+     * Apply every action up to and including the given time, then tick the game clock on to that time
+     *
+     * @param time game clock to play up to, in nanoseconds
+     */
+    public void advanceTo(long time) {
+        while (!isFinished() && peekTime() <= time) {
+            step();
+        }
+        if (time > game.getClock() && !isFinished()) {
+            game.tick(time - game.getClock());
+        }
+    }
+
+    /**
+     * Jump to any time in the replay, going back to the start first if it is in the past
+     *
+     * @param time game clock to jump to, in nanoseconds
+     */
+    public void seek(long time) {
+        if (time < game.getClock()) {
+            reset();
+        }
+        advanceTo(time);
+    }
+
+    /**
+     * Apply every remaining action as fast as possible
+     */
+    public void runToEnd() {
+        while (step()) {
+            //keep going
+        }
+    }
+
+    /**
+     * Get when the next action happens, without applying it
+     *
+     * @return the game clock of the next action, in nanoseconds
+     */
+    private long peekTime() {
+        int saved = position;
+        position++;
+        long time = lastTime + readVarLong();
+        position = saved;
+        return time;
+    }
+
+    /**
+     * Read an unsigned varint at the current position, moving past it
+     *
+     * @return the value
+     */
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Read a big-endian int
+     *
+     * @param offset where it starts
+     * @return the int
+     */
+    private int readInt(int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Read a big-endian long
+     *
+     * @param offset where it starts
+     * @return the long
+     */
+    private long readLong(int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,202 @@
+package uk.ac.soton.comp1206.replay;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.GameAction;
+import uk.ac.soton.comp1206.event.GameActionListener;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.NoMovesPenalty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Records a game as a compact, append-only binary log, by listening to the actions applied to it.
+ * <p>
+ * The log starts with a header (magic, version, board size, piece generator, seed and no moves penalty) and then holds
+ * one record per action: an op byte (action in the top two bits, rotations in the bottom two), the time since the
+ * previous action as an unsigned varint of nanoseconds, and for a placement the column and row. That is 2 to 7 bytes
+ * an action.
+ * <p>
+ * Attach with game.setGameActionListener(recorder) before the game starts. Replays are played back by ReplayPlayer.
+ */
+public class ReplayRecorder implements GameActionListener {
+
+    private static final Logger logger = LogManager.getLogger(ReplayRecorder.class);
+
+    /**
+     * Marks the start of a replay file ("TRPY")
+     */
+    static final int MAGIC = 0x54525059;
+
+    /**
+     * The version of the format written
+     */
+    static final int VERSION = 3;
+
+    /**
+     * Generator kind for a game whose pieces come from PieceGenerator.uniform(seed)
+     */
+    static final int GENERATOR_UNIFORM = 0;
+
+    /**
+     * Length of the header in bytes
+     */
+    static final int HEADER_LENGTH = 4 + 1 + 1 + 1 + 1 + 8 + 1;
+
+    /**
+     * The log so far. Grows by doubling.
+     */
+    private byte[] bytes = new byte[256];
+
+    /**
+     * How many bytes of the log are used
+     */
+    private int length = 0;
+
+    /**
+     * The game clock at the last recorded action
+     */
+    private long lastTime = 0;
+
+    /**
+     * Number of actions recorded
+     */
+    private int actions = 0;
+
+    /**
+     * Start recording a game which uses the default no moves penalty
+     *
+     * @param cols number of columns of the board
+     * @param rows number of rows of the board
+     * @param seed the seed the game's uniform piece generator was created with
+     */
+    public ReplayRecorder(int cols, int rows, long seed) {
+        this(cols, rows, seed, Game.DEFAULT_NO_MOVES_PENALTY);
+    }
+
+    /**
+     * Start recording a game
+     *
+     * @param cols           number of columns of the board
+     * @param rows           number of rows of the board
+     * @param seed           the seed the game's uniform piece generator was created with
+     * @param noMovesPenalty what the game does when neither piece fits anywhere
+     */
+    public ReplayRecorder(int cols, int rows, long seed, NoMovesPenalty noMovesPenalty) {
+        writeInt(MAGIC);
+        writeByte(VERSION);
+        writeByte(cols);
+        writeByte(rows);
+        writeByte(GENERATOR_UNIFORM);
+        writeLong(seed);
+        writeByte(noMovesPenalty.ordinal());
+    }
+
+    @Override
+    public void gameAction(GameAction action, int x, int y, long time) {
+        int payload = action == GameAction.ROTATE ? Math.floorMod(x, 4) : 0;
+        writeByte(action.ordinal() << 6 | payload);
+        writeVarLong(time - lastTime);
+        if (action == GameAction.PLACE) {
+            writeByte(x);
+            writeByte(y);
+        }
+        lastTime = time;
+        actions++;
+    }
+
+    /**
+     * Get how many actions have been recorded
+     *
+     * @return number of actions
+     */
+    public int getActions() {
+        return actions;
+    }
+
+    /**
+     * Get a copy of the replay recorded so far
+     *
+     * @return the replay
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Write the replay recorded so far to a stream
+     *
+     * @param out the stream
+     * @throws IOException if it could not be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * Save the replay recorded so far to a file, creating its directory if needed
+     *
+     * @param file where to save it
+     * @throws IOException if it could not be written
+     */
+    public void save(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (var out = Files.newOutputStream(file)) {
+            writeTo(out);
+        }
+        logger.info("Saved replay of {} actions ({} bytes) to {}", actions, length, file);
+    }
+
+    /**
+     * Append a single byte
+     *
+     * @param value the byte, only the low 8 bits are used
+     */
+    private void writeByte(int value) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Append a big-endian int
+     *
+     * @param value the int
+     */
+    private void writeInt(int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            writeByte(value >>> shift);
+        }
+    }
+
+    /**
+     * Append a big-endian long
+     *
+     * @param value the long
+     */
+    private void writeLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            writeByte((int) (value >>> shift));
+        }
+    }
+
+    /**
+     * Append an unsigned varint: 7 bits a byte, lowest first, with the top bit set on every byte but the last
+     *
+     * @param value the value, treated as unsigned
+     */
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+}
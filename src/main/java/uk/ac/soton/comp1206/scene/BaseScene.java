@@ -34,6 +34,13 @@ public abstract class BaseScene {
      */
     public abstract void build();
 
+    /**
+     * Clean up before the game window moves on to another scene, such as removing listeners this scene added. Called
+     * on every switch away from the scene, however it happens, and may be called more than once.
+     */
+    public void cleanup() {
+    }
+
     /**
      * Create a new JavaFX scene using the root contained within this scene
      *
@@ -1,12 +1,9 @@
 package uk.ac.soton.comp1206.scene;
 
-import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
 import javafx.animation.FillTransition;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.event.ActionEvent;
-import javafx.event.EventHandler;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.effect.DropShadow;
@@ -22,12 +19,21 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.event.GameEvent;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.helpers.FileReader;
 import uk.ac.soton.comp1206.helpers.Multimedia;
+import uk.ac.soton.comp1206.replay.ReplayRecorder;
+import uk.ac.soton.comp1206.simulation.HintSearch;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * The Single Player challenge scene. Holds the UI for the single player challenge mode in the game.
  */
@@ -39,16 +45,6 @@ public class ChallengeScene extends BaseScene {
      * the game itself
      */
     protected Game game;
-    /**
-     * the number of frames elapsed in this cycle.
-     */
-    private int noOfFrames = 0; //the number of frames elapsed to play the current piece
-    /**
-     * the number of frames the player has until a life is lost.
-     * Starting value is calculated based on the spec.
-     */
-    private int noOfFramesUntilDeath = 1150;
-
     /**
      * The visual bar which shows the player how much time they have left to play the current piece.
      */
@@ -69,9 +65,19 @@ public class ChallengeScene extends BaseScene {
     private GameBoard board;
 
     /**
-     * the timer the game uses to keep track of lives
+     * drives the game clock once per frame and redraws the death bar. The game itself keeps track of lives.
+     */
+    private AnimationTimer timer;
+
+    /**
+     * records the game so it can be replayed, or null if it isn't being recorded
      */
-    private Timeline timer;
+    private ReplayRecorder recorder;
+
+    /**
+     * finds hints in the background when H is pressed
+     */
+    private HintSearch hintSearch;
 
     /**
      * Create a new Single Player challenge scene
@@ -127,16 +133,16 @@ public class ChallengeScene extends BaseScene {
 
         //on right click or click on current piece rotate the current piece
         board.setOnRightClick((() -> {
-            game.rotateCurrentPiece(1);
+            game.rotate(1);
         }));
 
         displayCurrentPiece.setOnRightClick(() -> {
-            game.rotateCurrentPiece(1);
+            game.rotate(1);
         });
 
         //also works on left click (as spec intends)
         displayFollowingPiece.setOnRightClick(() -> {
-            game.swapPieces();
+            game.swap();
         });
 
         //add pieceboards to the screen
@@ -172,7 +178,6 @@ public class ChallengeScene extends BaseScene {
 
 
         //set up timer for animations and etc
-        final int delayBetweenFrames = 10; //the delay between frames in ms
         timer = setUpTimer();
 
         //set up rectangle which shrinks to create death timer
@@ -180,8 +185,18 @@ public class ChallengeScene extends BaseScene {
         mainPane.setBottom(deathBar);
 
 
-        //reset the timer when a piece is played
-        game.setPiecePlacedListener(this::resetWindowAnimations);
+        //play sounds and reset the timer when things happen in the game
+        game.setGameEventListener(this::handleGameEvent);
+
+        //show hints on the board as the search finds better ones. They come back on the FX thread.
+        hintSearch = new HintSearch(Platform::runLater);
+        hintSearch.setHintListener((move, finished) -> {
+            if (move == null) {
+                board.clearHint();
+                return;
+            }
+            board.showHint(move.getPiece(), move.getX(), move.getY());
+        });
 
         //'reset' animations
         resetWindowAnimations();
@@ -190,9 +205,7 @@ public class ChallengeScene extends BaseScene {
         Multimedia.playBackgroundMusic(Multimedia.MUSIC.GAME);
 
         //start timer
-        timer.setCycleCount(Animation.INDEFINITE); //run the timer indefinetly
-
-        timer.play();
+        timer.start();
 
 
     }
@@ -237,79 +250,126 @@ public class ChallengeScene extends BaseScene {
         deathBar.setArcWidth(1);
         deathBar.setX(0);
         deathBar.setY(10);
+        //an untimed game has nothing to count down
+        deathBar.setVisible(game.isTimed());
     }
 
     /**
-     * resets the death bar and the timer
+     * resets the death bar
      */
     private void resetWindowAnimations() {
-        resetTimer();
-        resetDeathBar(noOfFramesUntilDeath);
+        resetDeathBar(game.getTimerDelay());
+    }
+
+    /**
+     * Reacts to something happening in the game, by playing sounds and updating the display
+     *
+     * @param event what happened in the game
+     */
+    private void handleGameEvent(GameEvent event) {
+        switch (event) {
+            case PLACED -> {
+                Multimedia.playAudioFile(Multimedia.SOUND.PLACE);
+                //reset the timer when a piece is played
+                resetWindowAnimations();
+                clearHint();
+            }
+            case PLACE_FAILED -> Multimedia.playAudioFile(Multimedia.SOUND.FAIL);
+            case ROTATED -> Multimedia.playAudioFile(Multimedia.SOUND.ROTATE);
+            case LINES_CLEARED -> Multimedia.playAudioFile(Multimedia.SOUND.CLEAR);
+            //losing a life throws the pieces in hand away
+            case LIFE_LOST -> {
+                resetWindowAnimations();
+                clearHint();
+            }
+            //the timer goes back or forward with the move
+            case UNDONE, REDONE -> {
+                resetWindowAnimations();
+                clearHint();
+            }
+            case GAME_OVER -> {
+                Multimedia.playAudioFile(Multimedia.SOUND.EXPLODE);
+                timer.stop();
+                hintSearch.shutdown();
+                saveReplay();
+                gameOver();
+            }
+        }
     }
 
     /**
-     * sets up the timeline to use for the challenge scene. Cannot extend keyframe so needs to be defined here
+     * Stop looking for a hint and take it off the board. Hints are only good for the board they were asked about, so
+     * this is done whenever the board or the pieces in hand change. Turning or swapping the pieces doesn't count, as
+     * the hint shows the piece the way it should be played.
+     */
+    private void clearHint() {
+        hintSearch.cancel();
+        board.clearHint();
+    }
+
+    /**
+     * Called once per frame, after the game clock has moved on. Does nothing here, for subclasses to drive the game.
      *
-     * @return returns the timeline.
+     * @param now the timestamp of the frame, in nanoseconds
+     */
+    protected void onFrame(long now) {
+    }
+
+    /**
+     * Called once the game is over and its replay saved. A challenge goes on to the scores.
+     */
+    protected void gameOver() {
+        gameWindow.cleanup();
+        gameWindow.startScores(game);
+    }
+
+    /**
+     * Stop the game, save its replay and go back to the menu
      */
-    private Timeline setUpTimer() {
-        final int delayBetweenFrames = 10;
+    protected void returnToMenu() {
+        gameWindow.cleanup();
+        timer.stop();
+        hintSearch.shutdown();
+        saveReplay();
+        gameWindow.startMenu();
+    }
 
-        return new Timeline(new KeyFrame(Duration.millis(delayBetweenFrames), new EventHandler<ActionEvent>() {
+    /**
+     * sets up the timer to use for the challenge scene. It runs once per frame, moving the game clock on to the
+     * frame's timestamp and redrawing the death bar. The game works out the deadlines itself from the real time
+     * passed, so a slow frame can't make the timer drift or miss one.
+     *
+     * @return returns the timer.
+     */
+    private AnimationTimer setUpTimer() {
+        return new AnimationTimer() {
 
             /**
              * this function is called every frame
-             * @param actionEvent unused. Needs to be there due to override.
+             * @param now the timestamp of the frame, in nanoseconds
              */
             @Override
-            public void handle(ActionEvent actionEvent) {
-                //increament number of frames
-                noOfFrames++;
-
-                //check if time has run out to place the current piece
-                //recalculated each frame in case level increases
-                //formula as spec : 12000 - (500 * currentLevel) : min value 2500. Divide by delay between frames to convert to frames
-                noOfFramesUntilDeath = (12000 - (500 * game.getLevel().get())) / delayBetweenFrames;
-                if (noOfFramesUntilDeath < 250) {
-                    noOfFramesUntilDeath = 250;
-                }
+            public void handle(long now) {
+                //move the game clock on to now. The game takes care of losing lives.
+                game.advanceTo(now);
+                onFrame(now);
 
                 //adjust the bar
-                adjustDeathBar(noOfFrames, noOfFramesUntilDeath);
-
-                //check if your dead
-                if (noOfFrames == noOfFramesUntilDeath) {
-                    logger.info("detected that life should be lost");
-                    //decrease lives by one
-                    game.getLives().set(game.getLives().get() - 1);
-
-                    //if no lives are left die
-                    //check if lives is  zero
-                    if (game.getLives().get() == 0) {
-                        logger.info("lost");
-                        Multimedia.playAudioFile(Multimedia.SOUND.EXPLODE);
-                        gameWindow.cleanup();
-                        gameWindow.startScores(game);
-                    }
-
-                    //change the current piece
-                    game.replaceCurrentPiece();
-
-                    //reset the window
-                    resetWindowAnimations();
-
+                if (!game.isTimed()) {
+                    return;
                 }
+                adjustDeathBar(game.getTimerElapsed(), game.getTimerDelay() * 1_000_000L);
             }
-        }));
+        };
     }
 
     /**
-     * @param currentFrame the amount of frames elapsed in the animation
-     * @param totalFrames  the amount of frames for the bar goes to 0
+     * @param elapsed the time elapsed on the timer, in nanoseconds
+     * @param total   the time until the bar goes to 0, in nanoseconds
      */
-    private void adjustDeathBar(int currentFrame, int totalFrames) {
+    private void adjustDeathBar(long elapsed, long total) {
         //get the percent of the bar which should be full
-        double howFar = (double) currentFrame / (double) totalFrames;
+        double howFar = (double) elapsed / (double) total;
 
         //subtract it from a full bar to get the bar decreasing effect
         deathBar.setWidth(gameWindow.getWidth() - (howFar * (double) gameWindow.getWidth()));
@@ -318,24 +378,17 @@ public class ChallengeScene extends BaseScene {
     /**
      * Resets the death bar VISUALLY ( so it makes it look full again )
      *
-     * @param totalFrames the amount of frames the player has to play the piece
+     * @param totalMillis the amount of milliseconds the player has to play the piece
      */
-    private void resetDeathBar(int totalFrames) {
+    private void resetDeathBar(int totalMillis) {
         //reset the width
         deathBar.setWidth(gameWindow.getWidth());
 
-        //reset the transition to red. totalFrames * 10 as each frame is 10 ms long.
-        FillTransition fillTransition = new FillTransition(new Duration(totalFrames * 10), deathBar, Color.GREEN, Color.RED);
+        //reset the transition to red.
+        FillTransition fillTransition = new FillTransition(new Duration(totalMillis), deathBar, Color.GREEN, Color.RED);
         fillTransition.playFromStart();
     }
 
-    /**
-     * resets the timer backend. putting number of frames to 0 achieves the effect of reseting the timer.
-     */
-    private void resetTimer() {
-        noOfFrames = 0;
-    }
-
     /**
      * Creates the detection of each key press and handles each key press
      */
@@ -345,21 +398,31 @@ public class ChallengeScene extends BaseScene {
             if (key.getCode() == KeyCode.R || key.getCode() == KeyCode.SPACE) {
                 //swap piece
                 logger.info("R or space press detected");
-                game.swapPieces();
+                game.swap();
             } else if (key.getCode() == KeyCode.Q || key.getCode() == KeyCode.Z || key.getCode() == KeyCode.OPEN_BRACKET) {
                 //left rotation
                 logger.info("Q or Z or [ press detected");
-                game.rotateCurrentPiece(3);
+                game.rotate(3);
             } else if (key.getCode() == KeyCode.E || key.getCode() == KeyCode.C || key.getCode() == KeyCode.CLOSE_BRACKET) {
                 //right rotation
                 logger.info("E or C or ] press detected");
-                game.rotateCurrentPiece(1);
+                game.rotate(1);
+            } else if (key.getCode() == KeyCode.U || key.getCode() == KeyCode.BACK_SPACE) {
+                //undo, if the game allows it
+                logger.info("U or backspace press detected");
+                game.undo();
+            } else if (key.getCode() == KeyCode.Y) {
+                //redo, if the game allows it
+                logger.info("Y press detected");
+                game.redo();
+            } else if (key.getCode() == KeyCode.H) {
+                //show the best move, refining it for as long as the board stays the same
+                logger.info("H press detected");
+                hintSearch.request(game);
             } else if (key.getCode() == KeyCode.ESCAPE) {
                 //go back to menu
                 logger.info("Escape key press detected");
-                gameWindow.cleanup();
-                timer.stop();
-                gameWindow.startMenu();
+                returnToMenu();
             }
             //moving position on the grid
             else if (key.getCode() == KeyCode.W || key.getCode() == KeyCode.UP) {
@@ -462,7 +525,7 @@ public class ChallengeScene extends BaseScene {
      * @param gameBlock the Game Block that was clocked
      */
     private void blockClicked(GameBlock gameBlock) {
-        game.blockClicked(gameBlock);
+        game.place(gameBlock.getX(), gameBlock.getY());
     }
 
     /**
@@ -471,8 +534,47 @@ public class ChallengeScene extends BaseScene {
     public void setupGame() {
         logger.info("Starting a new challenge");
 
-        //Start new game
-        game = new Game(5, 5);
+        //Start new game, recording it so it can be replayed
+        long seed = ThreadLocalRandom.current().nextLong();
+        game = createGame(seed);
+        if (isRecorded()) {
+            recorder = new ReplayRecorder(game.getCols(), game.getRows(), seed, game.getNoMovesPenalty());
+            game.setGameActionListener(recorder);
+        }
+    }
+
+    /**
+     * Whether games in this scene are recorded and saved as replays
+     *
+     * @return true to save a replay of every game
+     */
+    protected boolean isRecorded() {
+        return true;
+    }
+
+    /**
+     * Create the game for this scene. A standard challenge is played on a 5x5 board.
+     *
+     * @param seed seed for picking pieces
+     * @return the new game
+     */
+    protected Game createGame(long seed) {
+        return new Game(5, 5, seed);
+    }
+
+    /**
+     * Save the replay of this game to the replays folder. A replay that can't be saved is logged, not fatal.
+     */
+    private void saveReplay() {
+        if (recorder == null) {
+            return;
+        }
+        var file = Path.of("replays", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".replay");
+        try {
+            recorder.save(file);
+        } catch (IOException e) {
+            logger.error("Could not save replay: " + e.getMessage());
+        }
     }
 
     /**
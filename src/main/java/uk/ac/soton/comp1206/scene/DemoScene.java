@@ -0,0 +1,106 @@
+package uk.ac.soton.comp1206.scene;
+
+import javafx.event.Event;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.simulation.Bot;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Attract mode: the Bot plays a challenge by itself, for when the menu has been left idle. It moves at a steady pace
+ * so people watching can follow it, and any key or click hands the screen back to the menu. Demo games aren't
+ * recorded, and when one ends another starts.
+ */
+public class DemoScene extends ChallengeScene {
+
+    private static final Logger logger = LogManager.getLogger(DemoScene.class);
+
+    /**
+     * Time between the bot's moves, in nanoseconds
+     */
+    private static final long MOVE_INTERVAL = 800_000_000L;
+
+    /**
+     * The player
+     */
+    private final Bot bot = new Bot();
+
+    /**
+     * Breaks ties between equally good moves, so demos don't all look the same
+     */
+    private final SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+
+    /**
+     * Timestamp of the frame the bot last moved on, or 0 before its first move
+     */
+    private long lastMove = 0;
+
+    /**
+     * Create a new demo scene
+     *
+     * @param gameWindow the Game Window
+     */
+    public DemoScene(GameWindow gameWindow) {
+        super(gameWindow);
+    }
+
+    /**
+     * Demo games aren't anybody's, so they aren't recorded
+     *
+     * @return false
+     */
+    @Override
+    protected boolean isRecorded() {
+        return false;
+    }
+
+    /**
+     * Start the game, and go back to the menu on any key or click. The filters take the input before the challenge's
+     * own handlers can act on it.
+     */
+    @Override
+    public void initialise() {
+        super.initialise();
+        getScene().addEventFilter(KeyEvent.KEY_PRESSED, this::wake);
+        getScene().addEventFilter(MouseEvent.MOUSE_PRESSED, this::wake);
+    }
+
+    /**
+     * Let the bot move, if it has waited long enough since its last move
+     *
+     * @param now the timestamp of the frame, in nanoseconds
+     */
+    @Override
+    protected void onFrame(long now) {
+        if (lastMove != 0 && now - lastMove < MOVE_INTERVAL) {
+            return;
+        }
+        lastMove = now;
+        bot.move(game, random);
+    }
+
+    /**
+     * Start another demo game rather than showing the scores
+     */
+    @Override
+    protected void gameOver() {
+        gameWindow.cleanup();
+        gameWindow.startDemo();
+    }
+
+    /**
+     * Somebody has come along, so give them the menu
+     *
+     * @param event the key press or click
+     */
+    private void wake(Event event) {
+        logger.info("Input during demo, going back to the menu");
+        event.consume();
+        returnToMenu();
+    }
+}
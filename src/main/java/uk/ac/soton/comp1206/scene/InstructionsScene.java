@@ -13,7 +13,7 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.component.CanvasPieceBoard;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.helpers.getImage;
@@ -87,7 +87,7 @@ public class InstructionsScene extends BaseScene {
 
 
         //add dynamically genereated blocks
-        ArrayList<PieceBoard> pieceBoards = new ArrayList<>();
+        ArrayList<CanvasPieceBoard> pieceBoards = new ArrayList<>();
         final int pieceBoardWidth = 75; //width of pieceboards
         final int pieceBoardHeight = 75; //height of pieceboards
 
@@ -107,7 +107,7 @@ public class InstructionsScene extends BaseScene {
         int currentHieghtOfPieceboards = 0; //the current height of the pieceboards in this vbox
         for (int i = 0; i < GamePiece.PIECES; i++) {
             //create and display piece
-            PieceBoard pieceBoard = new PieceBoard(pieceBoardWidth, pieceBoardHeight);
+            CanvasPieceBoard pieceBoard = new CanvasPieceBoard(pieceBoardWidth, pieceBoardHeight);
             pieceBoard.setPieceToDisplay(GamePiece.createPiece(i));
 
             //check if pieceboard is going to be offscreen.
@@ -28,10 +28,13 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.helpers.getImage;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.Message;
+import uk.ac.soton.comp1206.network.Subscription;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import static uk.ac.soton.comp1206.helpers.getImage.getImage;
 
@@ -43,6 +46,9 @@ public class LobbyScene extends BaseScene {
     //the communicator to communicate with the server
     private Communicator com;
 
+    //the lobby's listeners on the communicator, removed when it closes
+    private final List<Subscription> subscriptions = new ArrayList<>();
+
     //displays the name of current channels
     private VBox channelDisplay;
 
@@ -120,9 +126,8 @@ public class LobbyScene extends BaseScene {
         //add name display
         borderPane.setCenter(namesDisplay);
 
-        //add listener
-        com.clearListeners();
-        com.addListener(this::handleResponse);
+        //add listeners, one for each kind of message the lobby cares about
+        subscribeToResponses();
 
         //Do inital lobby check
         com.send("LIST");
@@ -173,49 +178,49 @@ public class LobbyScene extends BaseScene {
     }
 
     /**
-     * handles all possible responses from the server
-     *
-     * @param response the string response from the server
+     * subscribes to all the responses from the server the lobby handles. The communicator decodes them, so each
+     * handler gets its message already picked apart.
      */
-    private void handleResponse(String response) {
+    private void subscribeToResponses() {
         //Platform... to avoid funkiness with threads
-        if (response.startsWith("CHANNELS")) {
-            Platform.runLater(() -> {
-                handleChannelResponse(response);
-            });
-        } else if (response.startsWith("JOIN")) {
+        subscriptions.add(com.subscribe(Message.Channels.class, channels -> Platform.runLater(() -> {
+            addChanelsToScreen(channels.channels());
+        })));
+        subscriptions.add(com.subscribe(Message.Join.class, join -> Platform.runLater(() -> {
             //handle joining the channel
-            Platform.runLater(() -> {
-                handleJoiningAChannel(response);
-                makeNameText("NAMES: ");
-            });
-        } else if (response.startsWith("ERROR")) {
-            logger.info(response);
-        } else if (response.startsWith("NICK")) {
-            Platform.runLater(() -> {
-                handleNick(response);
-            });
-        } else if (response.startsWith("MSG")) {
-            Platform.runLater(() -> {
-                handleIncomingMessage(response);
-            });
-        } else if (response.startsWith("USERS")) {
-            Platform.runLater(() -> {
-                handleIncomingUsers(response);
-            });
+            currentChannel = join.channel();
+            makeNameText("NAMES: ");
+        })));
+        subscriptions.add(com.subscribe(Message.Nick.class, nick -> Platform.runLater(() -> {
+            name = nick.name();
+        })));
+        subscriptions.add(com.subscribe(Message.Msg.class, msg -> Platform.runLater(() -> {
+            handleIncomingMessage(msg);
+        })));
+        subscriptions.add(com.subscribe(Message.Users.class, users -> Platform.runLater(() -> {
+            handleIncomingUsers(users);
+        })));
+    }
+
+    /**
+     * removes all the lobby's listeners from the communicator, so nothing arrives after it closes, and stops polling
+     */
+    @Override
+    public void cleanup() {
+        for (Subscription subscription : subscriptions) {
+            subscription.unsubscribe();
         }
+        subscriptions.clear();
+        checkTimer.stop();
     }
 
     /**
      * handles the list of incoming users
      *
-     * @param response the string response from the server of the list of users
+     * @param users the list of users from the server
      */
-    private void handleIncomingUsers(String response) {
-        response = response.replace("USERS ", "");
-
-        String[] names = response.split("\n");
-        for (String x : names) {
+    private void handleIncomingUsers(Message.Users users) {
+        for (String x : users.users()) {
             makeNameText(x);
         }
     }
@@ -223,64 +228,29 @@ public class LobbyScene extends BaseScene {
     /**
      * add incoming message to the chat box
      *
-     * @param response the message
+     * @param msg the message
      */
-    private void handleIncomingMessage(String response) {
-        //remove msg header
-        response = response.replace("MSG ", "");
-        response += "\n";
-
+    private void handleIncomingMessage(Message.Msg msg) {
         //create and add text
-        Text text = new Text(response);
+        String line = msg.from().isEmpty() ? msg.text() : msg.from() + ":" + msg.text();
+        Text text = new Text(line + "\n");
         text.setFill(Color.GREEN);
         text.setFont(new Font("Arial", 15));
 
         myTextFlow.getChildren().add(text);
     }
 
-    /**
-     * handles changing the users nickname
-     *
-     * @param response the response from the server (the name)
-     */
-    private void handleNick(String response) {
-        name = response.replace("NICK ", "");
-        this.name = name;
-    }
-
-    /**
-     * handles joining a new channel
-     *
-     * @param response the response from the server (the channel name)
-     */
-    private void handleJoiningAChannel(String response) {
-        response = response.replace("JOIN ", "");
-        currentChannel = response;
-
-    }
-
-    /**
-     * handles and displays the list of channels
-     *
-     * @param response the list of channels from the server
-     */
-    private void handleChannelResponse(String response) {
-        response = response.replace("CHANNELS ", "");
-        String[] channels = response.split("\n");
-        addChanelsToScreen(channels);
-    }
-
     /**
      * Adds the channels to the screen as buttons. when clicking said button it joins the channel
      *
      * @param channelNames the channel names to add
      */
-    private void addChanelsToScreen(String[] channelNames) {
+    private void addChanelsToScreen(List<String> channelNames) {
         ArrayList<Button> channelButtons = new ArrayList<>();
 
-        for (int i = 0; i < channelNames.length; i++) {
+        for (String channelName : channelNames) {
             //create a button
-            channelButtons.add(makeChannelButton(channelNames[i]));
+            channelButtons.add(makeChannelButton(channelName));
         }
 
         //update the display
@@ -426,7 +396,6 @@ public class LobbyScene extends BaseScene {
             if (key.getCode() == KeyCode.ESCAPE) {
                 logger.info("Escape key press detected");
                 gameWindow.cleanup();
-                checkTimer.stop();
                 gameWindow.startMenu();
             }
         });
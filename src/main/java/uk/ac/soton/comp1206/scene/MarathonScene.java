@@ -0,0 +1,60 @@
+package uk.ac.soton.comp1206.scene;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+/**
+ * A challenge played on a bigger board, anything up to Grid.MAX_SIZE a side. Lines are longer, so they are harder to
+ * clear but worth more. Otherwise plays exactly like the normal challenge.
+ */
+public class MarathonScene extends ChallengeScene {
+
+    private static final Logger logger = LogManager.getLogger(MarathonScene.class);
+
+    /**
+     * The board size used from the menu
+     */
+    public static final int DEFAULT_SIZE = 10;
+
+    /**
+     * Number of columns of the board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows of the board
+     */
+    private final int rows;
+
+    /**
+     * Create a new marathon challenge scene
+     *
+     * @param gameWindow the Game Window
+     * @param cols       number of columns of the board
+     * @param rows       number of rows of the board
+     */
+    public MarathonScene(GameWindow gameWindow, int cols, int rows) {
+        super(gameWindow);
+        if (cols < 3 || rows < 3 || cols > Grid.MAX_SIZE || rows > Grid.MAX_SIZE) {
+            throw new IllegalArgumentException("Marathon board must be between 3 and " + Grid.MAX_SIZE + " a side: "
+                    + cols + " x " + rows);
+        }
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    /**
+     * Create the game on the marathon board
+     *
+     * @param seed seed for picking pieces
+     * @return the new game
+     */
+    @Override
+    protected Game createGame(long seed) {
+        logger.info("Starting a {} x {} marathon", cols, rows);
+        return new Game(cols, rows, seed);
+    }
+}
@@ -2,9 +2,11 @@ package uk.ac.soton.comp1206.scene;
 
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
 import javafx.animation.RotateTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Pos;
@@ -12,6 +14,8 @@ import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -36,6 +40,16 @@ public class MenuScene extends BaseScene {
 
     private static final Logger logger = LogManager.getLogger(MenuScene.class);
 
+    /**
+     * How long the menu can sit untouched before the demo starts
+     */
+    private static final Duration IDLE_TIME = Duration.seconds(60);
+
+    /**
+     * Counts down to starting the demo, restarted by any input
+     */
+    private final PauseTransition idleTimer = new PauseTransition(IDLE_TIME);
+
     /**
      * Create a new menu scene
      *
@@ -78,6 +92,20 @@ public class MenuScene extends BaseScene {
         tetrecsTitle.setPreserveRatio(true);
         BorderPane.setAlignment(tetrecsTitle, Pos.CENTER); //add it to the top center
 
+        //show whether the server is there, in the top right. The menu doesn't wait for it.
+        Text serverStatus = new Text();
+        serverStatus.setFont(new Font("Orbitron", 14));
+        serverStatus.setFill(Color.WHITESMOKE);
+        var state = gameWindow.getCommunicator().stateProperty();
+        serverStatus.textProperty().bind(Bindings.createStringBinding(() -> switch (state.get()) {
+            case CONNECTING -> "Connecting to server...";
+            case CONNECTED -> "Online";
+            case DISCONNECTED -> "Offline, retrying";
+            case CLOSED -> "Offline";
+        }, state));
+        mainPane.setTop(serverStatus);
+        BorderPane.setAlignment(serverStatus, Pos.TOP_RIGHT);
+
         //make vbox to add all the buttons
         VBox vbox = new VBox();
         vbox.setSpacing(10);
@@ -86,6 +114,18 @@ public class MenuScene extends BaseScene {
         Button playButton = constructMenuButtons("Play");
         playButton.setOnAction(this::startGame);
 
+        //make the marathon button, for a game on a bigger board
+        Button marathonButton = constructMenuButtons("Marathon");
+        marathonButton.setOnMouseClicked(e -> {
+            gameWindow.startMarathon(MarathonScene.DEFAULT_SIZE, MarathonScene.DEFAULT_SIZE);
+        });
+
+        //make the practice button, for an untimed game with undo
+        Button practiceButton = constructMenuButtons("Practice");
+        practiceButton.setOnMouseClicked(e -> {
+            gameWindow.startPractice();
+        });
+
         //make the button to display the instruction
         Button instrButton = constructMenuButtons("Instructions");
 
@@ -119,7 +159,7 @@ public class MenuScene extends BaseScene {
 
 
         //add buttons to vbox
-        vbox.getChildren().addAll(playButton, instrButton, multButton, exitButton);
+        vbox.getChildren().addAll(playButton, marathonButton, practiceButton, instrButton, multButton, exitButton);
         vbox.setAlignment(Pos.CENTER);
 
         //want dev logo on the bottom right of the screen. So it needs to be added to the bottom of the border pane
@@ -197,11 +237,20 @@ public class MenuScene extends BaseScene {
     }
 
     /**
-     * Initialise the menu
+     * Initialise the menu, starting the demo if it's left idle
      */
     @Override
     public void initialise() {
-
+        idleTimer.setOnFinished(e -> {
+            //the timer outlives the scene, so only start the demo if the menu is still showing
+            if (gameWindow.getScene() == getScene()) {
+                logger.info("Menu idle, starting the demo");
+                gameWindow.startDemo();
+            }
+        });
+        getScene().addEventFilter(KeyEvent.ANY, e -> idleTimer.playFromStart());
+        getScene().addEventFilter(MouseEvent.ANY, e -> idleTimer.playFromStart());
+        idleTimer.playFromStart();
     }
 
     /**
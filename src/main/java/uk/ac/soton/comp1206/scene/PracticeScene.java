@@ -0,0 +1,52 @@
+package uk.ac.soton.comp1206.scene;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.NoMovesPenalty;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+/**
+ * A relaxed challenge for practising. There is no timer, getting stuck doesn't cost anything, and every placement,
+ * rotation and swap can be undone (U or backspace) and redone (Y) as far back as the start of the game. The game only
+ * ends when the player leaves, and isn't saved as a replay.
+ */
+public class PracticeScene extends ChallengeScene {
+
+    private static final Logger logger = LogManager.getLogger(PracticeScene.class);
+
+    /**
+     * Create a new practice scene
+     *
+     * @param gameWindow the Game Window
+     */
+    public PracticeScene(GameWindow gameWindow) {
+        super(gameWindow);
+    }
+
+    /**
+     * Create an untimed game with undo turned on
+     *
+     * @param seed seed for picking pieces
+     * @return the new game
+     */
+    @Override
+    protected Game createGame(long seed) {
+        logger.info("Starting a practice game");
+        Game game = super.createGame(seed);
+        game.setTimed(false);
+        game.setNoMovesPenalty(NoMovesPenalty.NONE);
+        game.setUndoEnabled(true);
+        return game;
+    }
+
+    /**
+     * Practice games use undo, which replays can't reproduce, so they aren't recorded
+     *
+     * @return false
+     */
+    @Override
+    protected boolean isRecorded() {
+        return false;
+    }
+}
@@ -22,11 +22,14 @@ import uk.ac.soton.comp1206.helpers.FileReader;
 import uk.ac.soton.comp1206.helpers.Multimedia;
 import uk.ac.soton.comp1206.helpers.getImage;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.Message;
+import uk.ac.soton.comp1206.network.Subscription;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 
 import static uk.ac.soton.comp1206.helpers.getImage.getImage;
 
@@ -41,6 +44,9 @@ public class ScoreScene extends BaseScene {
     //the communicator to interact with the server
     private Communicator com;
 
+    //the listener for online scores, removed when the scene closes
+    private Subscription onlineScores;
+
     public ScoreScene(GameWindow gameWindow, Game game) {
         super(gameWindow);
         this.game = game;
@@ -198,25 +204,36 @@ public class ScoreScene extends BaseScene {
         });
     }
 
+    /**
+     * removes the online scores listener from the communicator, so nothing arrives after the scene closes
+     */
+    @Override
+    public void cleanup() {
+        if (onlineScores != null) {
+            onlineScores.unsubscribe();
+            onlineScores = null;
+        }
+    }
+
     /**
      * request online scores
      */
     private void loadOnlineScores() {
-        com.clearListeners();
-        com.addListener(this::recieveOnlineScores);
+        onlineScores = com.subscribe(Message.HiScores.class, this::recieveOnlineScores);
         com.send("HISCORES");
     }
 
 
     /**
      * handle online scores
+     *
+     * @param hiScores the online scores, decoded by the communicator
      */
-    private void recieveOnlineScores(String response) {
-        //remove the hiscores tag at the front of the response
+    private void recieveOnlineScores(Message.HiScores hiScores) {
         //platform.runlater so no weirdness with threads
         Platform.runLater(() -> {
             logger.info("Recieved communiication");
-            addOnlineScoreToDisplay(response);
+            addOnlineScoreToDisplay(hiScores.scores());
 
         });
 
@@ -225,16 +242,20 @@ public class ScoreScene extends BaseScene {
     /**
      * add the online scores to the display
      *
-     * @param message the online scores
+     * @param scores the online scores
      */
 
-    private void addOnlineScoreToDisplay(String message) {
+    private void addOnlineScoreToDisplay(List<Message.Score> scores) {
         logger.info("Handling communication");
-        //format the message
-        message = message.replace("HISCORES ", "");
+        if (scores.isEmpty()) {
+            return;
+        }
 
         //create vbox
-        var arrListTemp = extractScoresAndNamesAsPair(message.split("\n"));
+        var arrListTemp = new ArrayList<Pair<String, Integer>>();
+        for (Message.Score score : scores) {
+            arrListTemp.add(new Pair<>(score.name(), score.score()));
+        }
         VBox temp = createScoresDisplay(arrListTemp);
 
         //write the score online if its large enough (size checked in function)
@@ -0,0 +1,111 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * The default Heuristic for the Bot. Likes boards with room for every kind of piece, open cells, lines which are
+ * nearly complete and a multiplier worth keeping going, and dislikes empty cells boxed in on every side, which only
+ * the single block piece can fill.
+ * <p>
+ * Most features are read off the grid's row occupancy and line counts, costing a few word operations per row and
+ * column. Checking which pieces still fit is the expensive part, at one Grid.hasLegalPlacement per kind of piece, but
+ * it's what keeps the bot alive: the default weights were tuned with the simulator, where it matters far more than
+ * the rest.
+ */
+public class BoardHeuristic implements Heuristic {
+
+    /**
+     * Value of each empty cell
+     */
+    private final int openCell;
+
+    /**
+     * Value of each boxed in empty cell, usually negative
+     */
+    private final int isolatedCell;
+
+    /**
+     * Value of a complete line, if it weren't cleared. A line is worth this times the square of the fraction of it
+     * filled, so nearly complete lines count most. Kept under the 10 points a block a clear scores, so clearing a line
+     * always pays.
+     */
+    private final int lineFill;
+
+    /**
+     * Value of each kind of piece which could still be placed somewhere
+     */
+    private final int pieceFits;
+
+    /**
+     * Value of each point of multiplier above 1
+     */
+    private final int multiplier;
+
+    /**
+     * Create the heuristic with the default weights
+     */
+    public BoardHeuristic() {
+        this(2, -5, 5, 20, 10);
+    }
+
+    /**
+     * Create the heuristic with weights of your own, for tuning
+     *
+     * @param openCell     value of each empty cell
+     * @param isolatedCell value of each boxed in empty cell
+     * @param lineFill     value of a complete line, scaled down by the square of how full lines are
+     * @param pieceFits    value of each kind of piece which still fits
+     * @param multiplier   value of each point of multiplier above 1
+     */
+    public BoardHeuristic(int openCell, int isolatedCell, int lineFill, int pieceFits, int multiplier) {
+        this.openCell = openCell;
+        this.isolatedCell = isolatedCell;
+        this.lineFill = lineFill;
+        this.pieceFits = pieceFits;
+        this.multiplier = multiplier;
+    }
+
+    @Override
+    public int evaluate(Grid grid, int multiplier) {
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        long rowMask = cols == Long.SIZE ? -1L : (1L << cols) - 1;
+
+        int open = 0;
+        int isolated = 0;
+        int rowSquares = 0;
+        int columnSquares = 0;
+        long freeAbove = 0;
+        long free = ~grid.getRowOccupancy(0) & rowMask;
+        for (int y = 0; y < rows; y++) {
+            long freeBelow = y + 1 < rows ? ~grid.getRowOccupancy(y + 1) & rowMask : 0;
+            open += Long.bitCount(free);
+
+            //a free cell with no free neighbour. The edge of the board counts as filled.
+            long freeNeighbour = (free << 1 | free >>> 1 | freeAbove | freeBelow) & rowMask;
+            isolated += Long.bitCount(free & ~freeNeighbour);
+
+            rowSquares += grid.getRowFill(y) * grid.getRowFill(y);
+            freeAbove = free;
+            free = freeBelow;
+        }
+        for (int x = 0; x < cols; x++) {
+            columnSquares += grid.getColumnFill(x) * grid.getColumnFill(x);
+        }
+        //fill squared over length, so a line is worth lineFill * length * (fraction filled)^2, on any size of board
+        int fill = lineFill * rowSquares / cols + lineFill * columnSquares / rows;
+
+        int fits = 0;
+        if (pieceFits != 0) {
+            for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+                if (grid.hasLegalPlacement(GamePiece.createPiece(piece))) {
+                    fits++;
+                }
+            }
+        }
+
+        return open * openCell + isolated * isolatedCell + fill + fits * pieceFits
+                + (multiplier - 1) * this.multiplier;
+    }
+}
@@ -0,0 +1,711 @@
+package uk.ac.soton.comp1206.simulation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.BoardSnapshot;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PieceGenerator;
+import uk.ac.soton.comp1206.game.Placements;
+import uk.ac.soton.comp1206.game.TranspositionTable;
+import uk.ac.soton.comp1206.game.Zobrist;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A computer player which searches a few placements ahead. Used as a Strategy by the Simulator, and to play the game
+ * by itself in the attract mode demo.
+ * <p>
+ * Every placement of the current piece, and of the following piece after a swap, is played on a private copy of the
+ * board and scored as the points it makes plus what the Heuristic thinks of the board it leaves. The best few of
+ * those (the beam) are each searched further on a fork/join pool, one task per move, looking at the placements of the
+ * pieces that would come next and again only following the best few at every ply. A move is worth its points plus
+ * the best its beam can do afterwards.
+ * <p>
+ * Only the current and following pieces are known, so a depth of 2 plays fair. Deeper searches peek at the upcoming
+ * pieces, which is fine for a demo or for tuning but not something a player can do.
+ * <p>
+ * Positions reached by more than one order of moves are only searched once, thanks to a transposition table shared
+ * by the tasks. A bot plays one game at a time, but can be used for any number of games one after another.
+ * <p>
+ * Choosing a move straight from a Game reads the game, so has to happen on the game's thread. To search somewhere
+ * else, capture the Position first, and choose from that; the search never touches the game.
+ */
+public class Bot implements Strategy {
+
+    private static final Logger logger = LogManager.getLogger(Bot.class);
+
+    /**
+     * How many placements the bot looks ahead, unless told otherwise. The deepest it can go without peeking.
+     */
+    public static final int DEFAULT_DEPTH = 2;
+
+    /**
+     * How many moves the bot follows at each ply, unless told otherwise
+     */
+    public static final int DEFAULT_BEAM_WIDTH = 8;
+
+    /**
+     * The deepest the bot can look: the two pieces the player can see, and the generator's lookahead after that
+     */
+    public static final int MAX_DEPTH = 2 + PieceGenerator.DEFAULT_LOOKAHEAD;
+
+    /**
+     * The value of a position where neither piece fits, worse than anything else
+     */
+    private static final int STUCK = -1_000_000;
+
+    /**
+     * How many positions the transposition table holds
+     */
+    private static final int TABLE_ENTRIES = 1 << 16;
+
+    /**
+     * For searches which can't be cancelled
+     */
+    private static final BooleanSupplier NEVER = () -> false;
+
+    /**
+     * Everything a search needs to know about a game, copied out of it so the search can run on another thread
+     */
+    public static final class Position {
+
+        /**
+         * the board
+         */
+        private final BoardSnapshot board;
+
+        /**
+         * the pieces to be played: current, following, then any peeked at
+         */
+        private final GamePiece[] sequence;
+
+        /**
+         * the multiplier
+         */
+        private final int multiplier;
+
+        Position(BoardSnapshot board, GamePiece[] sequence, int multiplier) {
+            this.board = board;
+            this.sequence = sequence;
+            this.multiplier = multiplier;
+        }
+
+        /**
+         * @return the board
+         */
+        public BoardSnapshot getBoard() {
+            return board;
+        }
+
+        /**
+         * @return the multiplier
+         */
+        public int getMultiplier() {
+            return multiplier;
+        }
+    }
+
+    /**
+     * The move a bot decided on
+     */
+    public static final class Move {
+
+        /**
+         * whether to swap to the following piece first
+         */
+        private final boolean swap;
+
+        /**
+         * how many times to rotate the piece clockwise
+         */
+        private final int rotation;
+
+        /**
+         * the piece as it will be placed, rotated
+         */
+        private final GamePiece piece;
+
+        /**
+         * where to place the piece's centre
+         */
+        private final int x;
+        private final int y;
+
+        /**
+         * how good the bot thinks the move is
+         */
+        private final int value;
+
+        Move(boolean swap, int rotation, GamePiece piece, int x, int y, int value) {
+            this.swap = swap;
+            this.rotation = rotation;
+            this.piece = piece;
+            this.x = x;
+            this.y = y;
+            this.value = value;
+        }
+
+        /**
+         * @return true if the following piece is played, after a swap
+         */
+        public boolean isSwap() {
+            return swap;
+        }
+
+        /**
+         * @return how many times to rotate the piece clockwise, counted from how it is now
+         */
+        public int getRotation() {
+            return rotation;
+        }
+
+        /**
+         * @return the piece as it will be placed, already rotated
+         */
+        public GamePiece getPiece() {
+            return piece;
+        }
+
+        /**
+         * @return the column of the piece's centre
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * @return the row of the piece's centre
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * @return how good the bot thinks the move is: its points plus the value of what follows
+         */
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return (swap ? "swap, " : "") + "rotate " + rotation + ", place at " + x + ", " + y + " (" + value + ")";
+        }
+    }
+
+    /**
+     * Judges the positions at the end of the search
+     */
+    private final Heuristic heuristic;
+
+    /**
+     * How many placements to look ahead
+     */
+    private final int depth;
+
+    /**
+     * How many moves to follow at each ply
+     */
+    private final int beamWidth;
+
+    /**
+     * Where the beam is searched, when the bot isn't already running in a fork/join pool
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Positions already searched, shared by every task
+     */
+    private final TranspositionTable table = new TranspositionTable(TABLE_ENTRIES);
+
+    /**
+     * Scratch for scoring the first ply, reused while the board size stays the same
+     */
+    private Searcher rootSearcher;
+
+    /**
+     * How many moves have been chosen
+     */
+    private long searches = 0;
+
+    /**
+     * Create a bot with the default heuristic, depth and beam width, searching on the common pool
+     */
+    public Bot() {
+        this(new BoardHeuristic(), DEFAULT_DEPTH, DEFAULT_BEAM_WIDTH);
+    }
+
+    /**
+     * Create a bot, searching on the common pool
+     *
+     * @param heuristic judges positions
+     * @param depth     how many placements to look ahead, 1 to MAX_DEPTH
+     * @param beamWidth how many moves to follow at each ply
+     */
+    public Bot(Heuristic heuristic, int depth, int beamWidth) {
+        this(heuristic, depth, beamWidth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a bot
+     *
+     * @param heuristic judges positions
+     * @param depth     how many placements to look ahead, 1 to MAX_DEPTH
+     * @param beamWidth how many moves to follow at each ply
+     * @param pool      where to search the beam, when not already running in a fork/join pool
+     */
+    public Bot(Heuristic heuristic, int depth, int beamWidth, ForkJoinPool pool) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH + ": " + depth);
+        }
+        if (beamWidth < 1) {
+            throw new IllegalArgumentException("Beam width must be at least 1: " + beamWidth);
+        }
+        this.heuristic = heuristic;
+        this.depth = depth;
+        this.beamWidth = beamWidth;
+        this.pool = pool;
+    }
+
+    @Override
+    public boolean move(Game game, SplittableRandom random) {
+        Move move = choose(capture(game), random, NEVER);
+        if (move == null) {
+            return false;
+        }
+        if (move.isSwap()) {
+            game.swap();
+        }
+        if (move.getRotation() != 0) {
+            game.rotate(move.getRotation());
+        }
+        return game.place(move.getX(), move.getY());
+    }
+
+    /**
+     * Work out the best move, without making it. Equally good moves are decided by which was found first.
+     *
+     * @param game the game to play
+     * @return the move, or null if neither piece fits anywhere
+     */
+    public Move choose(Game game) {
+        return choose(capture(game), null, NEVER);
+    }
+
+    /**
+     * Work out the best move from a position captured earlier, without touching the game. Can be called from any
+     * thread, but a bot only does one search at a time.
+     *
+     * @param position  the position, from capture
+     * @param cancelled checked as the search goes, to give up early
+     * @return the move, or null if neither piece fits anywhere
+     * @throws CancellationException if the search was cancelled before it finished
+     */
+    public Move choose(Position position, BooleanSupplier cancelled) {
+        if (position.sequence.length < Math.max(2, depth)) {
+            throw new IllegalArgumentException("Position doesn't have enough pieces for a depth " + depth + " search");
+        }
+        return choose(position, null, cancelled);
+    }
+
+    /**
+     * Copy everything a search needs out of a game. Peeks at as many upcoming pieces as the bot's depth needs.
+     *
+     * @param game the game
+     * @return the position
+     */
+    public Position capture(Game game) {
+        GamePiece[] sequence = new GamePiece[Math.max(2, depth)];
+        sequence[0] = game.getCurrentPiece();
+        sequence[1] = game.getFollowingPiece();
+        for (int i = 2; i < sequence.length; i++) {
+            sequence[i] = game.peekPiece(i - 2);
+        }
+        return new Position(game.getGrid().snapshot(), sequence, game.getMultiplierValue());
+    }
+
+    /**
+     * Work out the best move, without making it
+     *
+     * @param position  the position to move from
+     * @param random    decides between equally good moves, or null to take the first found
+     * @param cancelled checked as the search goes, to give up early
+     * @return the move, or null if neither piece fits anywhere
+     */
+    private Move choose(Position position, SplittableRandom random, BooleanSupplier cancelled) {
+        BoardSnapshot board = position.board;
+        GamePiece[] sequence = position.sequence;
+        if (rootSearcher == null || rootSearcher.grid.getCols() != board.getCols()
+                || rootSearcher.grid.getRows() != board.getRows()) {
+            rootSearcher = new Searcher(board.getCols(), board.getRows());
+        }
+        searches++;
+        table.newSearch();
+        //beyond 2 plies the value of a position depends on which pieces are coming, which changes every move
+        long salt = depth > 2 ? searches * 0x9E3779B97F4A7C15L : 0;
+
+        //score every first move, and keep the best for the beam
+        Searcher root = rootSearcher;
+        root.start(board, sequence, salt, cancelled);
+        int found = root.expand(0, sequence[0], position.multiplier);
+        if (found == 0) {
+            return null;
+        }
+        int width = Math.min(found, beamWidth);
+        int[] moves = new int[width];
+        int[] values = new int[width];
+        System.arraycopy(root.beamMoves[0], 0, moves, 0, width);
+        System.arraycopy(root.beamValues[0], 0, values, 0, width);
+
+        //then search on from each of them in parallel
+        if (depth > 1) {
+            var task = new BeamTask(board, sequence, salt, cancelled, position.multiplier, moves, values, 0, width);
+            if (ForkJoinTask.inForkJoinPool()) {
+                task.invoke();
+            } else {
+                pool.invoke(task);
+            }
+        }
+
+        int best = 0;
+        long bestKey = Long.MIN_VALUE;
+        for (int i = 0; i < width; i++) {
+            //random low bits so equally good moves are picked between fairly
+            long key = (long) values[i] << 16 | (random == null ? (1 << 16) - 1 - i : random.nextInt(1 << 16));
+            if (key > bestKey) {
+                bestKey = key;
+                best = i;
+            }
+        }
+
+        //turn the winning move back into something the game understands. The root board is back how it started.
+        int choice = moves[best] >>> 16;
+        GamePiece piece = sequence[choice];
+        Placements placements = root.placements[0][choice];
+        root.grid.legalPlacements(piece, placements);
+        int index = moves[best] & 0xFFFF;
+        int rotation = placements.getRotation(index);
+        Move move = new Move(choice == 1, rotation, piece.rotate(rotation), placements.getX(index),
+                placements.getY(index), values[best]);
+        logger.trace("Bot chose {} from {} moves", move, found);
+        return move;
+    }
+
+    /**
+     * A private board to play moves out on, with scratch space for every ply. Moves are taken back by restoring
+     * snapshots, which only copy the rows a move changed. Each thread searches with its own.
+     */
+    private class Searcher {
+
+        /**
+         * The board moves are played out on
+         */
+        private final Grid grid;
+
+        /**
+         * Scratch placements for each ply, and each of the two pieces in hand
+         */
+        private final Placements[][] placements;
+
+        /**
+         * The best moves found at each ply, best first, as piece choice (0 current, 1 following) << 16 | placement
+         */
+        private final int[][] beamMoves;
+
+        /**
+         * The values of the best moves found at each ply
+         */
+        private final int[][] beamValues;
+
+        /**
+         * The pieces to be played: the two in hand, then any peeked at
+         */
+        private GamePiece[] sequence;
+
+        /**
+         * Mixed into every hash, to keep searches apart
+         */
+        private long salt;
+
+        /**
+         * Checked as the search goes, to give up early
+         */
+        private BooleanSupplier cancelled;
+
+        /**
+         * Lines cleared by the last call to play
+         */
+        private int linesCleared;
+
+        Searcher(int cols, int rows) {
+            grid = new Grid(cols, rows);
+            placements = new Placements[depth][2];
+            beamMoves = new int[depth][beamWidth];
+            beamValues = new int[depth][beamWidth];
+            for (int ply = 0; ply < depth; ply++) {
+                placements[ply][0] = new Placements(cols, rows);
+                placements[ply][1] = new Placements(cols, rows);
+            }
+        }
+
+        /**
+         * Get ready to search a position
+         *
+         * @param board     the board
+         * @param sequence  the pieces to be played
+         * @param salt      mixed into every hash
+         * @param cancelled checked as the search goes
+         */
+        void start(BoardSnapshot board, GamePiece[] sequence, long salt, BooleanSupplier cancelled) {
+            grid.restore(board);
+            this.sequence = sequence;
+            this.salt = salt;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * Get the piece that would be in the following slot at a ply, if it's known
+         *
+         * @param ply the ply
+         * @return the piece, or null if it hasn't been seen
+         */
+        GamePiece following(int ply) {
+            return ply + 1 < sequence.length ? sequence[ply + 1] : null;
+        }
+
+        /**
+         * Score every move from the board as it is, keeping the best beamWidth of them in beamMoves[ply] and
+         * beamValues[ply]. A move's score is its points plus the heuristic value of the board it leaves. The board is
+         * left as it was.
+         *
+         * @param ply        the ply, for the scratch space and which pieces are in hand
+         * @param held       the current piece
+         * @param multiplier the multiplier
+         * @return how many moves there were in total
+         * @throws CancellationException if the search has been cancelled
+         */
+        int expand(int ply, GamePiece held, int multiplier) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Search cancelled");
+            }
+            BoardSnapshot here = grid.snapshot();
+            GamePiece following = following(ply);
+            int[] moves = beamMoves[ply];
+            int[] values = beamValues[ply];
+            int size = 0;
+            int found = 0;
+
+            for (int choice = 0; choice < 2; choice++) {
+                GamePiece piece = choice == 0 ? held : following;
+                //swapping to the same kind of piece gives the same moves again
+                if (piece == null || (choice == 1 && piece.getPiece() == held.getPiece())) {
+                    continue;
+                }
+                Placements options = placements[ply][choice];
+                grid.legalPlacements(piece, options);
+                for (int i = options.first(); i >= 0; i = options.next(i)) {
+                    found++;
+                    int points = play(piece.rotate(options.getRotation(i)), options.getX(i), options.getY(i),
+                            multiplier);
+                    int value = points + heuristic.evaluate(grid, nextMultiplier(multiplier));
+                    grid.restore(here);
+
+                    //insert into the beam, best first, dropping the worst if it's full
+                    if (size == moves.length && value <= values[size - 1]) {
+                        continue;
+                    }
+                    int at = size == moves.length ? size - 1 : size++;
+                    while (at > 0 && values[at - 1] < value) {
+                        moves[at] = moves[at - 1];
+                        values[at] = values[at - 1];
+                        at--;
+                    }
+                    moves[at] = choice << 16 | i;
+                    values[at] = value;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Work out the value of the position on the board, searching the beam down to the full depth. The board is
+         * left as it was.
+         *
+         * @param ply        the ply to move at
+         * @param held       the current piece, or null if it isn't known
+         * @param multiplier the multiplier
+         * @return the best value reachable from the position
+         */
+        int search(int ply, GamePiece held, int multiplier) {
+            if (ply == depth || held == null) {
+                return heuristic.evaluate(grid, multiplier);
+            }
+
+            GamePiece following = following(ply);
+            long hash = grid.getHash() ^ Zobrist.piece(0, held) ^ (following == null ? 0 : Zobrist.piece(1, following))
+                    ^ Zobrist.multiplier(multiplier) ^ salt;
+            int remaining = depth - ply;
+            long entry = table.probe(hash);
+            if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) == remaining) {
+                return TranspositionTable.score(entry);
+            }
+
+            int found = expand(ply, held, multiplier);
+            int best;
+            if (found == 0) {
+                best = STUCK;
+            } else if (remaining == 1) {
+                //the beam is already scored as far as it goes
+                best = beamValues[ply][0];
+            } else {
+                best = Integer.MIN_VALUE;
+                BoardSnapshot here = grid.snapshot();
+                int width = Math.min(found, beamWidth);
+                for (int i = 0; i < width; i++) {
+                    int move = beamMoves[ply][i];
+                    int choice = move >>> 16;
+                    int value = playOn(ply, choice, move & 0xFFFF, held, multiplier);
+                    best = Math.max(best, value);
+                    grid.restore(here);
+                }
+            }
+            table.store(hash, best, remaining, TranspositionTable.NO_MOVE, TranspositionTable.Bound.EXACT);
+            return best;
+        }
+
+        /**
+         * Play one of the moves found by expand at a ply, and search on from the board it leaves. The board is left
+         * with the move played.
+         *
+         * @param ply        the ply the move was found at
+         * @param choice     0 for the current piece, 1 for the following piece
+         * @param index      the placement in placements[ply][choice]
+         * @param held       the current piece at the ply
+         * @param multiplier the multiplier before the move
+         * @return the points the move scores plus the value of what follows
+         */
+        int playOn(int ply, int choice, int index, GamePiece held, int multiplier) {
+            GamePiece piece = choice == 0 ? held : following(ply);
+            Placements options = placements[ply][choice];
+            int points = play(piece.rotate(options.getRotation(index)), options.getX(index), options.getY(index),
+                    multiplier);
+            //whichever piece wasn't played becomes the current piece
+            GamePiece next = choice == 0 ? following(ply) : held;
+            return points + search(ply + 1, next, nextMultiplier(multiplier));
+        }
+
+        /**
+         * Place a piece and clear any lines it completes, the way the game does
+         *
+         * @param piece      the piece, already rotated
+         * @param x          the column of its centre
+         * @param y          the row of its centre
+         * @param multiplier the multiplier before the move
+         * @return the points scored
+         */
+        int play(GamePiece piece, int x, int y, int multiplier) {
+            grid.playPiece(piece, x, y);
+            long fullRows = grid.getFullRows();
+            long fullColumns = grid.getFullColumns();
+            int noRows = Long.bitCount(fullRows);
+            int noColumns = Long.bitCount(fullColumns);
+            linesCleared = noRows + noColumns;
+            if (linesCleared == 0) {
+                return 0;
+            }
+            int blocks = noRows * grid.getCols() + noColumns * grid.getRows() - noRows * noColumns;
+            grid.clearLines(fullRows, fullColumns);
+            return Game.scoreFor(linesCleared, blocks, multiplier);
+        }
+
+        /**
+         * Work out the multiplier after the last call to play, the way the game does
+         *
+         * @param multiplier the multiplier before the move
+         * @return the multiplier after it
+         */
+        int nextMultiplier(int multiplier) {
+            return linesCleared == 0 ? 1 : multiplier + 1;
+        }
+    }
+
+    /**
+     * Searches on from a range of first moves, splitting the range until there is one move per task
+     */
+    private class BeamTask extends RecursiveAction {
+
+        /**
+         * The board before the first move
+         */
+        private final BoardSnapshot board;
+
+        /**
+         * The pieces to be played
+         */
+        private final GamePiece[] sequence;
+
+        /**
+         * Mixed into every hash
+         */
+        private final long salt;
+
+        /**
+         * Checked as the search goes
+         */
+        private final BooleanSupplier cancelled;
+
+        /**
+         * The multiplier before the first move
+         */
+        private final int multiplier;
+
+        /**
+         * The first moves, and their values. Each task replaces the values of its range with the searched ones.
+         */
+        private final int[] moves;
+        private final int[] values;
+
+        /**
+         * The range of moves, from inclusive, to exclusive
+         */
+        private final int from;
+        private final int to;
+
+        BeamTask(BoardSnapshot board, GamePiece[] sequence, long salt, BooleanSupplier cancelled, int multiplier,
+                 int[] moves, int[] values, int from, int to) {
+            this.board = board;
+            this.sequence = sequence;
+            this.salt = salt;
+            this.cancelled = cancelled;
+            this.multiplier = multiplier;
+            this.moves = moves;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BeamTask(board, sequence, salt, cancelled, multiplier, moves, values, from, middle),
+                        new BeamTask(board, sequence, salt, cancelled, multiplier, moves, values, middle, to));
+                return;
+            }
+
+            var searcher = new Searcher(board.getCols(), board.getRows());
+            searcher.start(board, sequence, salt, cancelled);
+            int choice = moves[from] >>> 16;
+            GamePiece piece = sequence[choice];
+            searcher.grid.legalPlacements(piece, searcher.placements[0][choice]);
+            values[from] = searcher.playOn(0, choice, moves[from] & 0xFFFF, sequence[0], multiplier);
+        }
+    }
+}
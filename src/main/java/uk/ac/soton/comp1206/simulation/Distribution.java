@@ -0,0 +1,77 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Summary statistics of one measurement across every simulated game: mean, spread and percentiles.
+ */
+public class Distribution {
+
+    /**
+     * Summarise a set of int results
+     *
+     * @param name   what was measured
+     * @param values one value per game
+     * @return a line of the report
+     */
+    public static String of(String name, int[] values) {
+        long[] copy = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            copy[i] = values[i];
+        }
+        return summarise(name, copy, 1);
+    }
+
+    /**
+     * Summarise a set of long results, dividing each by a scale first (e.g. milliseconds to seconds)
+     *
+     * @param name   what was measured
+     * @param values one value per game
+     * @param scale  what to divide each value by
+     * @return a line of the report
+     */
+    public static String of(String name, long[] values, double scale) {
+        return summarise(name, values.clone(), scale);
+    }
+
+    /**
+     * Sort the values and build the summary line
+     *
+     * @param name   what was measured
+     * @param values one value per game, may be reordered
+     * @param scale  what to divide each value by
+     * @return a line of the report
+     */
+    private static String summarise(String name, long[] values, double scale) {
+        if (values.length == 0) {
+            return String.format("%-17s no games%n", name);
+        }
+        Arrays.sort(values);
+
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (long value : values) {
+            sum += value / scale;
+            sumOfSquares += (value / scale) * (value / scale);
+        }
+        double mean = sum / values.length;
+        double deviation = Math.sqrt(Math.max(0, sumOfSquares / values.length - mean * mean));
+
+        return String.format("%-17s mean %10.1f  sd %10.1f  min %8.1f  p10 %8.1f  p50 %8.1f  p90 %8.1f  p99 %8.1f  max %8.1f%n",
+                name, mean, deviation, values[0] / scale, percentile(values, 10) / scale,
+                percentile(values, 50) / scale, percentile(values, 90) / scale, percentile(values, 99) / scale,
+                values[values.length - 1] / scale);
+    }
+
+    /**
+     * Get a percentile of sorted values, by nearest rank
+     *
+     * @param sorted     values in ascending order
+     * @param percentile the percentile, 0 to 100
+     * @return the value at that percentile
+     */
+    private static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
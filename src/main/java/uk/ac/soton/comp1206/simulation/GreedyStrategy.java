@@ -0,0 +1,115 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.Placements;
+
+import java.util.SplittableRandom;
+
+/**
+ * Looks one move ahead: tries every legal placement of both the current and following piece, and plays whichever
+ * completes the most lines, breaking ties by how full the rows and columns it lands in already are.
+ */
+public class GreedyStrategy implements Strategy {
+
+    /**
+     * Scratch set of legal placements, reused every move
+     */
+    private Placements placements;
+
+    /**
+     * Scratch counts of how many blocks a placement adds to each row
+     */
+    private int[] rowAdded;
+
+    /**
+     * Scratch counts of how many blocks a placement adds to each column
+     */
+    private int[] columnAdded;
+
+    @Override
+    public boolean move(Game game, SplittableRandom random) {
+        var grid = game.getGrid();
+        if (placements == null) {
+            placements = new Placements(grid.getCols(), grid.getRows());
+            rowAdded = new int[grid.getRows()];
+            columnAdded = new int[grid.getCols()];
+        }
+
+        long best = Long.MIN_VALUE;
+        int bestIndex = -1;
+        boolean bestIsFollowing = false;
+
+        for (int swap = 0; swap < 2; swap++) {
+            GamePiece piece = swap == 0 ? game.getCurrentPiece() : game.getFollowingPiece();
+            grid.legalPlacements(piece, placements);
+            for (int i = placements.first(); i >= 0; i = placements.next(i)) {
+                //random low bits so equally good moves are picked between fairly
+                long value = ((long) evaluate(grid, piece.rotate(placements.getRotation(i)),
+                        placements.getX(i), placements.getY(i)) << 16) | random.nextInt(1 << 16);
+                if (value > best) {
+                    best = value;
+                    bestIndex = i;
+                    bestIsFollowing = swap == 1;
+                }
+            }
+        }
+
+        if (bestIndex < 0) {
+            return false;
+        }
+
+        //placements holds the following piece's moves now, so redo the current piece's if that's what won
+        GamePiece piece;
+        if (bestIsFollowing) {
+            game.swap();
+            piece = game.getCurrentPiece();
+        } else {
+            piece = game.getCurrentPiece();
+            grid.legalPlacements(piece, placements);
+        }
+        game.rotate(placements.getRotation(bestIndex));
+        return game.place(placements.getX(bestIndex), placements.getY(bestIndex));
+    }
+
+    /**
+     * Score a placement: 1000 for each line it completes, plus how full the lines it lands in end up.
+     *
+     * @param grid  the grid
+     * @param piece the piece, already rotated
+     * @param x     centre column
+     * @param y     centre row
+     * @return the value of the placement, higher is better
+     */
+    private int evaluate(Grid grid, GamePiece piece, int x, int y) {
+        int value = 0;
+        int mask = piece.getMask();
+
+        //count the blocks the piece adds to each row and column
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            int bit = Integer.numberOfTrailingZeros(bits);
+            rowAdded[y + bit / 3 - 1]++;
+            columnAdded[x + bit % 3 - 1]++;
+        }
+
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            int bit = Integer.numberOfTrailingZeros(bits);
+            int row = y + bit / 3 - 1;
+            int column = x + bit % 3 - 1;
+
+            //each row and column is only counted once, then its scratch count is reset
+            if (rowAdded[row] != 0) {
+                int filled = grid.getRowFill(row) + rowAdded[row];
+                value += filled == grid.getCols() ? 1000 : filled;
+                rowAdded[row] = 0;
+            }
+            if (columnAdded[column] != 0) {
+                int filled = grid.getColumnFill(column) + columnAdded[column];
+                value += filled == grid.getRows() ? 1000 : filled;
+                columnAdded[column] = 0;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,22 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * Judges how good a position is to carry on playing from, for the Bot's search. The Bot adds it to the points scored
+ * on the way to the position, so it should be on roughly the same scale as the points for clearing a line.
+ * <p>
+ * The Bot calls it from several threads at once, so implementations must not keep state between calls.
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+    /**
+     * Judge a position
+     *
+     * @param grid       the board, which must not be changed
+     * @param multiplier the multiplier the next placement scores with
+     * @return the value of the position, higher is better
+     */
+    public int evaluate(Grid grid, int multiplier);
+}
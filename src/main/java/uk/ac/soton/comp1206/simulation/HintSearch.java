@@ -0,0 +1,154 @@
+package uk.ac.soton.comp1206.simulation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.HintListener;
+import uk.ac.soton.comp1206.game.Game;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Finds the best move for the player in the background, for the hint key.
+ * <p>
+ * Asking for a hint captures the position straight away and hands it to a search thread of its own, so the game's
+ * thread never waits. The search runs in stages, each a Bot searching wider than the last: the first only looks at
+ * where the pieces in hand can go, and answers in well under a frame, and each stage after that replaces the hint
+ * with a better one for as long as the player leaves it. Only the pieces the player can see are used, so hints play
+ * fair.
+ * <p>
+ * A hint is only good for the position it was asked about. Cancel it whenever the board changes; a cancelled search
+ * gives up at its next step, and nothing it finds afterwards is passed on.
+ */
+public class HintSearch {
+
+    private static final Logger logger = LogManager.getLogger(HintSearch.class);
+
+    /**
+     * The stages of every search, quickest first. The first is greedy, the rest look at both pieces in hand.
+     */
+    private final Bot[] stages = {
+            new Bot(new BoardHeuristic(), 1, 1),
+            new Bot(new BoardHeuristic(), 2, 4),
+            new Bot(new BoardHeuristic(), 2, 16),
+            new Bot(new BoardHeuristic(), 2, 64)
+    };
+
+    /**
+     * Runs the searches, one at a time
+     */
+    private final ExecutorService searcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Hint search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Where the listener is called, such as the game's thread
+     */
+    private final Executor callbacks;
+
+    /**
+     * The listener to tell about hints
+     */
+    private HintListener hintListener;
+
+    /**
+     * The hint being searched for, or null if there isn't one
+     */
+    private Request current;
+
+    /**
+     * One request for a hint
+     */
+    private static class Request {
+
+        /**
+         * Set once the hint is no longer wanted
+         */
+        private volatile boolean cancelled = false;
+    }
+
+    /**
+     * Create a hint search
+     *
+     * @param callbacks where to call the listener, such as Platform::runLater
+     */
+    public HintSearch(Executor callbacks) {
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Set the listener to tell about hints. It is called through the callback executor.
+     *
+     * @param listener the listener
+     */
+    public void setHintListener(HintListener listener) {
+        this.hintListener = listener;
+    }
+
+    /**
+     * Start searching for the best move in a game, cancelling any hint still being searched for. Call on the game's
+     * thread; returns straight away.
+     *
+     * @param game the game
+     */
+    public void request(Game game) {
+        cancel();
+        Request request = new Request();
+        current = request;
+        Bot.Position position = stages[stages.length - 1].capture(game);
+        logger.info("Searching for a hint");
+        searcher.execute(() -> search(request, position));
+    }
+
+    /**
+     * Stop searching for the current hint, if there is one. Nothing more is heard about it.
+     */
+    public void cancel() {
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+    }
+
+    /**
+     * Cancel any hint and stop the search thread, for when the game is finished with
+     */
+    public void shutdown() {
+        cancel();
+        searcher.shutdown();
+    }
+
+    /**
+     * Run every stage of a search, passing each result on, until the last is done or the request is cancelled.
+     * Runs on the search thread.
+     *
+     * @param request  the request
+     * @param position the position to search
+     */
+    private void search(Request request, Bot.Position position) {
+        for (int stage = 0; stage < stages.length && !request.cancelled; stage++) {
+            Bot.Move move;
+            try {
+                move = stages[stage].choose(position, () -> request.cancelled);
+            } catch (CancellationException e) {
+                logger.debug("Hint search cancelled at stage {}", stage);
+                return;
+            }
+            boolean finished = stage == stages.length - 1 || move == null;
+            callbacks.execute(() -> {
+                //the request may have been cancelled while this was waiting to run
+                if (!request.cancelled && hintListener != null) {
+                    hintListener.hintFound(move, finished);
+                }
+            });
+            if (finished) {
+                logger.debug("Hint search finished at stage {}: {}", stage, move);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.Placements;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays a random legal placement of the current piece, swapping to the following piece only if the current one fits
+ * nowhere. A baseline for what an aimless player scores.
+ */
+public class RandomStrategy implements Strategy {
+
+    /**
+     * Scratch set of legal placements, reused every move
+     */
+    private Placements placements;
+
+    @Override
+    public boolean move(Game game, SplittableRandom random) {
+        var grid = game.getGrid();
+        if (placements == null) {
+            placements = new Placements(grid.getCols(), grid.getRows());
+        }
+
+        grid.legalPlacements(game.getCurrentPiece(), placements);
+        if (placements.isEmpty()) {
+            grid.legalPlacements(game.getFollowingPiece(), placements);
+            if (placements.isEmpty()) {
+                return false;
+            }
+            game.swap();
+        }
+
+        //walk to a random one of the legal placements
+        int chosen = placements.first();
+        for (int skip = random.nextInt(placements.size()); skip > 0; skip--) {
+            chosen = placements.next(chosen);
+        }
+
+        game.rotate(placements.getRotation(chosen));
+        return game.place(placements.getX(chosen), placements.getY(chosen));
+    }
+}
@@ -0,0 +1,344 @@
+package uk.ac.soton.comp1206.simulation;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.NoMovesPenalty;
+import uk.ac.soton.comp1206.game.PieceGenerator;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Command line Monte Carlo simulator. Plays a large number of seeded headless games with a chosen strategy, spread
+ * across every core with a fork/join pool, and reports the distribution of scores, levels and how long games survive.
+ * <p>
+ * The games use the real scoring, levelling and timer code in Game, so changes to those formulas can be evaluated by
+ * re-running the simulator. Thinking time is modelled as an exponential delay before every move, which is what lets
+ * the timer formula matter.
+ * <p>
+ * Usage: Simulator [--games N] [--seed S] [--threads T] [--strategy random|greedy|bot] [--generator uniform|bag]
+ * [--depth D] [--beam B] [--think-ms M] [--max-pieces P] [--cols C] [--rows R] [--no-moves none|lose_life|game_over]
+ */
+public class Simulator {
+
+    private static final Logger logger = LogManager.getLogger(Simulator.class);
+
+    /**
+     * Games played by one fork/join task before it stops splitting
+     */
+    private static final int CHUNK = 256;
+
+    /**
+     * Number of games to play
+     */
+    private int games = 100_000;
+
+    /**
+     * Seed the whole run is derived from. The same seed always plays the same games.
+     */
+    private long seed = 1;
+
+    /**
+     * Number of threads to play games on
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Name of the strategy to play with
+     */
+    private String strategy = "greedy";
+
+    /**
+     * Name of the piece generator to deal pieces with
+     */
+    private String generator = "uniform";
+
+    /**
+     * How many placements the bot strategy looks ahead
+     */
+    private int depth = Bot.DEFAULT_DEPTH;
+
+    /**
+     * How many moves the bot strategy follows at each ply
+     */
+    private int beamWidth = Bot.DEFAULT_BEAM_WIDTH;
+
+    /**
+     * Mean thinking time before each move, in milliseconds
+     */
+    private double thinkMillis = 1500;
+
+    /**
+     * Games are stopped after this many pieces and counted as survivors
+     */
+    private int maxPieces = 2000;
+
+    /**
+     * Number of columns of the board
+     */
+    private int cols = 5;
+
+    /**
+     * Number of rows of the board
+     */
+    private int rows = 5;
+
+    /**
+     * What happens when neither piece fits anywhere
+     */
+    private NoMovesPenalty noMovesPenalty = Game.DEFAULT_NO_MOVES_PENALTY;
+
+    /**
+     * Final score of each game
+     */
+    private int[] scores;
+
+    /**
+     * Final level of each game
+     */
+    private int[] levels;
+
+    /**
+     * Pieces placed in each game
+     */
+    private int[] pieces;
+
+    /**
+     * Simulated time each game lasted, in milliseconds
+     */
+    private long[] durations;
+
+    /**
+     * Run the simulator from the command line
+     *
+     * @param args commandline arguments
+     */
+    public static void main(String[] args) {
+        //the game logs every move, which would swamp the output and the run time
+        Configurator.setLevel("uk.ac.soton.comp1206.game", Level.WARN);
+
+        var simulator = new Simulator();
+        try {
+            simulator.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        simulator.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.print(simulator.report());
+        System.out.printf("Played %d games in %.2f s (%.0f games/s)%n", simulator.games, seconds,
+                simulator.games / seconds);
+    }
+
+    /**
+     * Read the settings from the command line
+     *
+     * @param args commandline arguments
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--games" -> games = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--strategy" -> strategy = value;
+                case "--generator" -> generator = value;
+                case "--depth" -> depth = Integer.parseInt(value);
+                case "--beam" -> beamWidth = Integer.parseInt(value);
+                case "--think-ms" -> thinkMillis = Double.parseDouble(value);
+                case "--max-pieces" -> maxPieces = Integer.parseInt(value);
+                case "--cols" -> cols = Integer.parseInt(value);
+                case "--rows" -> rows = Integer.parseInt(value);
+                case "--no-moves" -> noMovesPenalty = NoMovesPenalty.valueOf(value.toUpperCase(Locale.ROOT));
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i - 1]);
+            }
+        }
+        //fail now rather than on every thread
+        createStrategy().get();
+        createGenerator(seed);
+    }
+
+    /**
+     * Get a factory for the chosen strategy, so each thread can have its own
+     *
+     * @return strategy factory
+     */
+    private Supplier<Strategy> createStrategy() {
+        return switch (strategy) {
+            case "random" -> RandomStrategy::new;
+            case "greedy" -> GreedyStrategy::new;
+            case "bot" -> () -> new Bot(new BoardHeuristic(), depth, beamWidth);
+            default -> throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        };
+    }
+
+    /**
+     * Create the chosen piece generator
+     *
+     * @param seed the seed for the generator
+     * @return the piece generator
+     */
+    private PieceGenerator createGenerator(long seed) {
+        return switch (generator) {
+            case "uniform" -> PieceGenerator.uniform(seed);
+            case "bag" -> PieceGenerator.bag(seed);
+            default -> throw new IllegalArgumentException("Unknown generator: " + generator);
+        };
+    }
+
+    /**
+     * Play every game
+     */
+    public void run() {
+        logger.info("Simulating {} games with the {} strategy on {} threads", games, strategy, threads);
+        scores = new int[games];
+        levels = new int[games];
+        pieces = new int[games];
+        durations = new long[games];
+
+        var pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new SimulationTask(createStrategy(), 0, games));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Play a single game to the end, recording how it went
+     *
+     * @param index    which game this is. Decides the seed.
+     * @param strategy the strategy to play with
+     */
+    private void play(int index, Strategy strategy) {
+        var random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+        var game = new Game(cols, rows, createGenerator(random.nextLong()));
+        game.setNoMovesPenalty(noMovesPenalty);
+        game.start();
+
+        long meanThinkNanos = (long) (thinkMillis * 1_000_000);
+        int placed = 0;
+
+        while (!game.isGameOver() && placed < maxPieces) {
+            //think before moving. If that takes too long the timer runs out first.
+            long think = (long) (-Math.log(1 - random.nextDouble()) * meanThinkNanos);
+            game.tick(think);
+            if (game.isGameOver()) {
+                break;
+            }
+
+            if (strategy.move(game, random)) {
+                placed++;
+            } else {
+                //nowhere to go, so sit out the rest of the timer
+                game.tick(game.getTimeRemaining());
+            }
+        }
+
+        scores[index] = game.getScoreValue();
+        levels[index] = game.getLevelValue();
+        pieces[index] = placed;
+        durations[index] = game.getClock() / 1_000_000;
+    }
+
+    /**
+     * Build a human readable report of the results
+     *
+     * @return the report
+     */
+    public String report() {
+        var report = new StringBuilder();
+        report.append(String.format("Strategy %s, %s pieces, %d games, %dx%d board, seed %d, mean think %.0f ms, "
+                + "no moves %s%n", strategy, generator, games, cols, rows, seed, thinkMillis,
+                noMovesPenalty.name().toLowerCase(Locale.ROOT)));
+        report.append(Distribution.of("Score", scores));
+        report.append(Distribution.of("Level", levels));
+        report.append(Distribution.of("Pieces placed", pieces));
+        report.append(Distribution.of("Seconds survived", durations, 1000));
+
+        //how many games reached each level
+        int maxLevel = 0;
+        for (int level : levels) {
+            maxLevel = Math.max(maxLevel, level);
+        }
+        int[] reached = new int[maxLevel + 1];
+        for (int level : levels) {
+            reached[level]++;
+        }
+        report.append("Final level counts:");
+        for (int level = 0; level <= maxLevel; level++) {
+            report.append(String.format(" %d=%d", level, reached[level]));
+        }
+        report.append(System.lineSeparator());
+
+        int survivors = 0;
+        for (int placed : pieces) {
+            if (placed >= maxPieces) survivors++;
+        }
+        report.append(String.format("Still alive after %d pieces: %d (%.2f%%)%n", maxPieces, survivors,
+                100.0 * survivors / games));
+        return report.toString();
+    }
+
+    /**
+     * Plays a range of games, splitting the range in half until it is small enough to play on one thread
+     */
+    private class SimulationTask extends RecursiveAction {
+
+        /**
+         * Makes the strategy each leaf task plays with
+         */
+        private final Supplier<Strategy> strategies;
+
+        /**
+         * First game to play
+         */
+        private final int from;
+
+        /**
+         * One past the last game to play
+         */
+        private final int to;
+
+        /**
+         * Create a task to play games from (inclusive) to (exclusive)
+         *
+         * @param strategies makes the strategy to play with
+         * @param from       first game
+         * @param to         one past the last game
+         */
+        SimulationTask(Supplier<Strategy> strategies, int from, int to) {
+            this.strategies = strategies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                Strategy strategy = strategies.get();
+                for (int i = from; i < to; i++) {
+                    play(i, strategy);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new SimulationTask(strategies, from, middle), new SimulationTask(strategies, middle, to));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.Game;
+
+import java.util.SplittableRandom;
+
+/**
+ * A way of playing the game, used by the Simulator. Each simulation thread gets its own Strategy, so implementations
+ * can keep scratch state between moves without synchronising.
+ */
+public interface Strategy {
+
+    /**
+     * Make one move: rotate or swap as needed, then place the current piece.
+     *
+     * @param game   the game to play
+     * @param random random number generator for this game
+     * @return true if a piece was placed, false if there was nowhere either piece could go
+     */
+    public boolean move(Game game, SplittableRandom random);
+}
@@ -10,6 +10,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.App;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.helpers.AssetCache;
+import uk.ac.soton.comp1206.helpers.Multimedia;
+import uk.ac.soton.comp1206.helpers.getImage;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.scene.*;
 
@@ -73,6 +76,9 @@ public class GameWindow {
         Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-Regular.ttf"), 32);
         Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-Bold.ttf"), 32);
         Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-ExtraBold.ttf"), 32);
+
+        //decode the images and sounds in the background while the menu comes up
+        AssetCache.preload(getImage.paths(), Multimedia.soundPaths(), Multimedia.musicPaths());
     }
 
     /**
@@ -89,6 +95,30 @@ public class GameWindow {
         loadScene(new ChallengeScene(this));
     }
 
+    /**
+     * Display a marathon challenge on a bigger board
+     *
+     * @param cols number of columns of the board, up to Grid.MAX_SIZE
+     * @param rows number of rows of the board, up to Grid.MAX_SIZE
+     */
+    public void startMarathon(int cols, int rows) {
+        loadScene(new MarathonScene(this, cols, rows));
+    }
+
+    /**
+     * Display an untimed practice challenge, with undo and redo
+     */
+    public void startPractice() {
+        loadScene(new PracticeScene(this));
+    }
+
+    /**
+     * Display the bot playing a challenge by itself, as an attract mode
+     */
+    public void startDemo() {
+        loadScene(new DemoScene(this));
+    }
+
     /**
      * display the instructions
      */
@@ -154,7 +184,9 @@ public class GameWindow {
      */
     public void cleanup() {
         logger.info("Clearing up previous scene");
-        communicator.clearListeners();
+        if (currentScene != null) {
+            currentScene.cleanup();
+        }
     }
 
     /**